@@ -0,0 +1,25 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Roda todos os benchmarks com o profiler de GC do JMH, que acrescenta aos
+ * resultados a alocação por operação ({@code gc.alloc.rate.norm}), para todas
+ * as políticas de {@code AllocationPolicies.NAMES}.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PlacementBenchmark.class.getSimpleName())
+                .param("policy", Policies.names().toArray(new String[0]))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
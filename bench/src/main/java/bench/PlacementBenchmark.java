@@ -0,0 +1,111 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyAbstract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vazão e latência da escolha e da alocação de um host por cada política, com
+ * os tipos de host e de VM do {@code Main}.
+ *
+ * Antes das medições o datacenter recebe 1,25 VM por host (a proporção de
+ * 2500 VMs para 2000 hosts do {@code Main}), colocadas em ordem nos primeiros
+ * hosts que as comportam, sem passar pela heurística da política, para que a
+ * preparação não dependa do custo da política medida. As medições usam três
+ * VMs extras, uma de cada tipo, em rodízio.
+ *
+ * O {@link BenchmarkMain} troca a lista de políticas abaixo pelos nomes de
+ * {@code AllocationPolicies}; ela só vale quando o JMH é chamado direto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PlacementBenchmark {
+
+    private static final int BROKER_ID = 3;
+
+    private static final int PROBES = 3;
+
+    @Param({"FirstFit", "BestFitCpu", "WorstFitCpu", "BestFitRam", "WorstFitRam", "Random", "Lago", "VectorPacking",
+        "Sampled", "RackAware"})
+    public String policy;
+
+    @Param({"100", "2000", "20000", "100000"})
+    public int hosts;
+
+    private PowerVmAllocationPolicyAbstract allocationPolicy;
+
+    private Vm[] probes;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Log.disable();
+        List<PowerHost> hostList = Policies.createHostList(hosts);
+        int preloaded = hosts * 5 / 4;
+        List<Vm> vmList = Policies.createVmList(BROKER_ID, preloaded + PROBES);
+        allocationPolicy = Policies.create(policy, hostList, 1);
+
+        int slot = 0;
+        for (int i = 0; i < preloaded && slot < hostList.size(); i++) {
+            Vm vm = vmList.get(i);
+            while (slot < hostList.size() && !hostList.get(slot).isSuitableForVm(vm)) {
+                slot++;
+            }
+            if (slot < hostList.size()) {
+                allocationPolicy.allocateHostForVm(vm, hostList.get(slot));
+            }
+        }
+
+        probes = new Vm[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = vmList.get(preloaded + i);
+        }
+    }
+
+    private Vm nextProbe() {
+        Vm vm = probes[next];
+        next = (next + 1) % PROBES;
+        return vm;
+    }
+
+    /**
+     * Chooses a host for a VM, without allocating it.
+     */
+    @Benchmark
+    public PowerHost findHostForVm() {
+        return allocationPolicy.findHostForVm(nextProbe());
+    }
+
+    /**
+     * Allocates a host for a VM and releases it, so the datacenter is the
+     * same at every operation.
+     */
+    @Benchmark
+    public boolean allocateHostForVm() {
+        Vm vm = nextProbe();
+        boolean allocated = allocationPolicy.allocateHostForVm(vm);
+        allocationPolicy.deallocateHostForVm(vm);
+        return allocated;
+    }
+
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyAbstract;
+
+/**
+ * Acesso às classes do projeto, que estão no pacote padrão.
+ *
+ * O JMH gera código no pacote de cada benchmark e classes de um pacote nomeado
+ * não podem importar classes do pacote padrão, então os benchmarks chamam
+ * {@code Main} e {@code AllocationPolicies} por reflexão, uma única vez na
+ * preparação, e daí em diante só usam os tipos do CloudSim. Os nomes das
+ * políticas medidas também vêm de {@code AllocationPolicies}, para que uma
+ * política nova entre nos benchmarks sem outra lista a manter.
+ */
+final class Policies {
+
+    private Policies() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> names() {
+        try {
+            return (List<String>) Class.forName("AllocationPolicies").getField("NAMES").get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read AllocationPolicies.NAMES", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<PowerHost> createHostList(int hosts) {
+        return (List<PowerHost>) invoke("Main", "createHostList", new Class<?>[]{int.class}, hosts);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Vm> createVmList(int brokerId, int vms) {
+        return (List<Vm>) invoke("Main", "createVmList", new Class<?>[]{int.class, int.class}, brokerId, vms);
+    }
+
+    static PowerVmAllocationPolicyAbstract create(String name, List<PowerHost> hosts, long seed) {
+        return (PowerVmAllocationPolicyAbstract) invoke("AllocationPolicies", "create",
+                new Class<?>[]{String.class, List.class, long.class}, name, hosts, seed);
+    }
+
+    private static Object invoke(String className, String method, Class<?>[] types, Object... args) {
+        try {
+            return Class.forName(className).getMethod(method, types).invoke(null, args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(className + "." + method + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot call " + className + "." + method, e);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Criação das políticas de alocação pelo nome, para os cenários de
+ * experimento.
+ */
+public final class AllocationPolicies {
+
+    /**
+     * Nomes aceitos por {@link #create(String, List, long)}.
+     */
+    public static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+            "FirstFit",
+            "BestFitCpu",
+            "WorstFitCpu",
+            "BestFitRam",
+            "WorstFitRam",
+            "Random",
+            "Lago",
+            "VectorPacking",
+            "Sampled",
+            "RackAware"));
+
+    private AllocationPolicies() {
+    }
+
+    /**
+     * Creates a policy by name, with the settings of the current scenario
+     * configuration.
+     *
+     * @param name the policy name, one of {@link #NAMES}
+     * @param hostList the hosts of the datacenter
+     * @param seed the seed of the policies that draw random numbers
+     * @return the new policy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BaseAllocationPolicy create(String name, List<PowerHost> hostList, long seed) {
+        return create(name, hostList, seed, ScenarioConfig.getCurrent());
+    }
+
+    /**
+     * Creates a policy by name.
+     *
+     * @param name the policy name, one of {@link #NAMES}
+     * @param hostList the hosts of the datacenter
+     * @param seed the seed of the policies that draw random numbers
+     * @param config the scenario configuration, with the settings of the
+     * sampled and the rack aware policies
+     * @return the new policy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BaseAllocationPolicy create(String name, List<PowerHost> hostList, long seed,
+            ScenarioConfig config) {
+        switch (name) {
+            case "FirstFit":
+                return new FirstFitAllocationPolicy(hostList);
+            case "BestFitCpu":
+                return new BestFitCpuAllocationPolicy(hostList);
+            case "WorstFitCpu":
+                return new WorstFitCpuAllocationPolicy(hostList);
+            case "BestFitRam":
+                return new BestFitRamAllocationPolicy(hostList);
+            case "WorstFitRam":
+                return new WorstFitRamAllocationPolicy(hostList);
+            case "Random":
+                return new RandomAllocationPolicy(hostList, seed);
+            case "Lago":
+                return new LagoAlgorithmAllocationPolicy(hostList);
+            case "VectorPacking":
+                return new VectorPackingAllocationPolicy(hostList);
+            case "Sampled":
+                return new SampledAllocationPolicy(hostList, config.getSamplingChoices(), config.getSamplingScore(),
+                        seed);
+            case "RackAware":
+                return new RackAwareAllocationPolicy(hostList, config.getHostsPerRack(), config.getRacksPerPod());
+            default:
+                throw new IllegalArgumentException("Unknown allocation policy " + name + "; expected one of " + NAMES);
+        }
+    }
+
+}
@@ -0,0 +1,452 @@
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * Tabela de alocação compartilhada pelas políticas de alocação.
+ *
+ * Guarda em vetores de tipos primitivos, indexados pela posição do host na
+ * lista de hosts (slot), a quantidade de núcleos (Pes), Ram, Mips e banda
+ * livres de cada host e, indexados pelo par usuário e id da VM, o host em que
+ * cada VM foi alocada e quanto ela consumiu. Substitui os mapas
+ * {@code vmTable}/{@code usedPes} chaveados por {@link Vm#getUid()} e a lista
+ * {@code freePes} de inteiros: alocar e liberar uma VM não cria objetos,
+ * apenas quando os vetores das VMs precisam crescer.
+ *
+ * O slot de um host é obtido pelo seu id em tempo constante, sem percorrer a
+ * lista de hosts, e não depende dos ids serem contíguos.
+ */
+public class AllocationTable {
+
+    /**
+     * Valor usado para VMs que não estão alocadas.
+     */
+    public static final int NO_HOST = -1;
+
+    /**
+     * Hosts indexados pelo slot.
+     */
+    private final Host[] hosts;
+
+    /**
+     * Slot de cada host, indexado pelo id do host; {@link #NO_HOST} para ids
+     * que não pertencem à tabela.
+     */
+    private final int[] slotById;
+
+    /**
+     * Núcleos, Ram, Mips e banda livres de cada host.
+     */
+    private final int[] freePes;
+    private final int[] freeRam;
+    private final double[] freeMips;
+    private final long[] freeBw;
+
+    /**
+     * Número de VMs alocadas em cada host.
+     */
+    private final int[] hostVmCount;
+
+    /**
+     * Índice denso de cada VM, por id do usuário e id da VM; {@link #NO_HOST}
+     * para VMs que a tabela nunca viu. VMs de usuários diferentes podem ter o
+     * mesmo id.
+     */
+    private int[][] vmIndex = new int[0][];
+
+    /**
+     * Número de índices densos já atribuídos.
+     */
+    private int vmIndexCount;
+
+    /**
+     * Slot do host em que cada VM está alocada, o usuário dono e o id da VM e
+     * os recursos reservados para ela, indexados pelo índice denso da VM.
+     */
+    private int[] vmHost;
+    private int[] vmUser;
+    private int[] vmId;
+    private int[] vmPes;
+    private int[] vmRam;
+    private double[] vmMips;
+    private long[] vmBw;
+
+    /**
+     * Number of VMs currently allocated.
+     */
+    private int vmCount;
+
+    /**
+     * Hosts que podem receber cada formato de VM, atualizados a cada
+     * alocação e liberação.
+     */
+    private final VmShapeIndex shapes;
+
+    /**
+     * Creates the table for the given hosts. The position of each host in the
+     * list is used as its slot.
+     *
+     * @param hosts the host list
+     */
+    public AllocationTable(List<? extends Host> hosts) {
+        int size = hosts.size();
+        int maxId = -1;
+        for (Host host : hosts) {
+            maxId = Math.max(maxId, host.getId());
+        }
+        this.hosts = new Host[size];
+        this.slotById = new int[maxId + 1];
+        Arrays.fill(slotById, NO_HOST);
+        this.freePes = new int[size];
+        this.freeRam = new int[size];
+        this.freeMips = new double[size];
+        this.freeBw = new long[size];
+        this.hostVmCount = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            Host host = hosts.get(slot);
+            if (slotById[host.getId()] != NO_HOST) {
+                throw new IllegalArgumentException("Duplicated host id " + host.getId());
+            }
+            this.hosts[slot] = host;
+            slotById[host.getId()] = slot;
+            freePes[slot] = host.getNumberOfPes();
+            freeRam[slot] = host.getRamProvisioner().getAvailableRam();
+            freeMips[slot] = host.getTotalMips();
+            freeBw[slot] = host.getBwProvisioner().getAvailableBw();
+        }
+        ensureVmCapacity(Math.max(16, size * 2));
+        this.shapes = new VmShapeIndex(this);
+    }
+
+    /**
+     * Gets the number of host slots.
+     *
+     * @return the number of hosts
+     */
+    public int getHostCount() {
+        return hosts.length;
+    }
+
+    /**
+     * Gets the host placed in a slot.
+     *
+     * @param <T> the host type
+     * @param slot the slot
+     * @return the host
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Host> T getHostAt(int slot) {
+        return (T) hosts[slot];
+    }
+
+    /**
+     * Gets the slot of a host.
+     *
+     * @param host the host
+     * @return the slot
+     * @throws IllegalArgumentException if the host is not in the table
+     */
+    public int slotOf(Host host) {
+        int id = host.getId();
+        if (id < 0 || id >= slotById.length || slotById[id] == NO_HOST || hosts[slotById[id]] != host) {
+            throw new IllegalArgumentException("Host #" + id + " is not managed by this allocation table");
+        }
+        return slotById[id];
+    }
+
+    /**
+     * Gets the free pes of a host.
+     *
+     * @param slot the host slot
+     * @return the free pes
+     */
+    public int getFreePes(int slot) {
+        return freePes[slot];
+    }
+
+    /**
+     * Gets the free ram of a host.
+     *
+     * @param slot the host slot
+     * @return the free ram
+     */
+    public int getFreeRam(int slot) {
+        return freeRam[slot];
+    }
+
+    /**
+     * Gets the free mips of a host.
+     *
+     * @param slot the host slot
+     * @return the free mips
+     */
+    public double getFreeMips(int slot) {
+        return freeMips[slot];
+    }
+
+    /**
+     * Gets the free bandwidth of a host.
+     *
+     * @param slot the host slot
+     * @return the free bandwidth
+     */
+    public long getFreeBw(int slot) {
+        return freeBw[slot];
+    }
+
+    /**
+     * Checks whether the free ram, mips and bandwidth recorded for a host can
+     * hold a VM, and whether each host pe can hold a VM pe. Unlike
+     * {@link Host#isSuitableForVm(Vm)}, it only looks at the table, so it
+     * also counts VMs that were recorded but not created in the host.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     * @return $true if the VM fits
+     */
+    public boolean fits(int slot, Vm vm) {
+        return freeRam[slot] >= vm.getCurrentRequestedRam()
+                && freeMips[slot] >= vm.getMips() * vm.getNumberOfPes()
+                && freeBw[slot] >= vm.getCurrentRequestedBw()
+                && hosts[slot].getVmScheduler().getPeCapacity() >= vm.getMips();
+    }
+
+    /**
+     * Gets the hosts that can receive each VM shape.
+     *
+     * @return the shape index
+     */
+    public VmShapeIndex getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Gets the number of VMs allocated in a host.
+     *
+     * @param slot the host slot
+     * @return the number of VMs of the host
+     */
+    public int getVmCount(int slot) {
+        return hostVmCount[slot];
+    }
+
+    /**
+     * Gets the number of VMs currently allocated.
+     *
+     * @return the number of allocated VMs
+     */
+    public int getVmCount() {
+        return vmCount;
+    }
+
+    /**
+     * Records that a VM has been created in the host of the given slot.
+     *
+     * @param vm the vm
+     * @param slot the host slot
+     */
+    public void allocate(Vm vm, int slot) {
+        int id = indexOrCreate(vm.getId(), vm.getUserId());
+        if (vmHost[id] != NO_HOST) {
+            deallocate(vm);
+        }
+        int pes = vm.getNumberOfPes();
+        int ram = vm.getCurrentRequestedRam();
+        double mips = vm.getMips() * pes;
+        long bw = vm.getCurrentRequestedBw();
+        vmHost[id] = slot;
+        vmPes[id] = pes;
+        vmRam[id] = ram;
+        vmMips[id] = mips;
+        vmBw[id] = bw;
+        freePes[slot] -= pes;
+        freeRam[slot] -= ram;
+        freeMips[slot] -= mips;
+        freeBw[slot] -= bw;
+        hostVmCount[slot]++;
+        vmCount++;
+        shapes.hostUpdated(slot);
+    }
+
+    /**
+     * Releases the resources recorded for a VM.
+     *
+     * @param vm the vm
+     * @return the slot of the host that was running the VM; {@link #NO_HOST}
+     * if the VM was not allocated
+     */
+    public int deallocate(Vm vm) {
+        int id = indexOf(vm.getId(), vm.getUserId());
+        int slot = id == NO_HOST ? NO_HOST : vmHost[id];
+        if (slot == NO_HOST) {
+            return NO_HOST;
+        }
+        freePes[slot] += vmPes[id];
+        freeRam[slot] += vmRam[id];
+        freeMips[slot] += vmMips[id];
+        freeBw[slot] += vmBw[id];
+        hostVmCount[slot]--;
+        vmHost[id] = NO_HOST;
+        vmCount--;
+        shapes.hostUpdated(slot);
+        return slot;
+    }
+
+    /**
+     * Gets the slot of the host running a VM.
+     *
+     * @param vmId the vm id
+     * @param userId the user id
+     * @return the host slot; {@link #NO_HOST} if the VM is not allocated
+     */
+    public int getHostSlot(int vmId, int userId) {
+        int id = indexOf(vmId, userId);
+        return id == NO_HOST ? NO_HOST : vmHost[id];
+    }
+
+    /**
+     * Gets the host running a VM.
+     *
+     * @param vmId the vm id
+     * @param userId the user id
+     * @return the host; $null if the VM is not allocated
+     */
+    public Host getHost(int vmId, int userId) {
+        int slot = getHostSlot(vmId, userId);
+        return slot == NO_HOST ? null : hosts[slot];
+    }
+
+    /**
+     * Checks the free capacity recorded for a host against the host itself:
+     * the Ram and bandwidth left in its provisioners and the Pes and Mips of
+     * the VMs it is running. VMs that are still migrating into the host are
+     * reserved by CloudSim without passing through the policy, so they are not
+     * counted.
+     *
+     * @param slot the host slot
+     * @throws IllegalStateException if the bookkeeping is inconsistent
+     */
+    public void verify(int slot) {
+        Host host = hosts[slot];
+        int pes = host.getNumberOfPes();
+        int ram = host.getRamProvisioner().getAvailableRam();
+        long bw = host.getBwProvisioner().getAvailableBw();
+        int vms = 0;
+        double mips = host.getTotalMips();
+        for (Vm vm : host.getVmList()) {
+            if (host.getVmsMigratingIn().contains(vm)) {
+                ram += host.getRamProvisioner().getAllocatedRamForVm(vm);
+                bw += host.getBwProvisioner().getAllocatedBwForVm(vm);
+                continue;
+            }
+            if (getHostSlot(vm.getId(), vm.getUserId()) != slot) {
+                throw new IllegalStateException("VM #" + vm.getId() + " runs on host #" + host.getId()
+                        + " but the allocation table places it on slot " + getHostSlot(vm.getId(), vm.getUserId()));
+            }
+            vms++;
+            pes -= vm.getNumberOfPes();
+            mips -= vm.getMips() * vm.getNumberOfPes();
+        }
+        if (pes != freePes[slot] || ram != freeRam[slot] || Math.abs(mips - freeMips[slot]) > 1e-6
+                || bw != freeBw[slot] || vms != hostVmCount[slot]) {
+            throw new IllegalStateException("Inconsistent free capacity for host #" + host.getId()
+                    + ": table has " + freePes[slot] + " Pes, " + freeRam[slot] + " Ram, " + freeMips[slot]
+                    + " Mips, " + freeBw[slot] + " Bw, " + hostVmCount[slot] + " VMs; host has " + pes + " Pes, "
+                    + ram + " Ram, " + mips + " Mips, " + bw + " Bw, " + vms + " VMs");
+        }
+    }
+
+    /**
+     * Checks the free capacity recorded for every host.
+     *
+     * @throws IllegalStateException if the bookkeeping is inconsistent
+     * @see #verify(int)
+     */
+    public void verifyAll() {
+        for (int slot = 0; slot < hosts.length; slot++) {
+            verify(slot);
+        }
+    }
+
+    /**
+     * Builds a map from VM uid to host with the current allocations. Meant
+     * for reports and compatibility with code that expects the CloudSim vm
+     * table; the policies themselves never use it.
+     *
+     * @return a new map with the current allocations
+     */
+    public Map<String, Host> toVmTable() {
+        Map<String, Host> vmTable = new HashMap<String, Host>();
+        for (int id = 0; id < vmIndexCount; id++) {
+            if (vmHost[id] != NO_HOST) {
+                vmTable.put(Vm.getUid(vmUser[id], vmId[id]), hosts[vmHost[id]]);
+            }
+        }
+        return vmTable;
+    }
+
+    /**
+     * Gets the dense index of a VM.
+     *
+     * @return the index; {@link #NO_HOST} if the table has never seen the VM
+     */
+    private int indexOf(int vmId, int userId) {
+        if (userId < 0 || userId >= vmIndex.length || vmIndex[userId] == null
+                || vmId < 0 || vmId >= vmIndex[userId].length) {
+            return NO_HOST;
+        }
+        return vmIndex[userId][vmId];
+    }
+
+    /**
+     * Gets the dense index of a VM, assigning the next free one the first
+     * time the VM is seen. Only assigning an index may grow the arrays.
+     */
+    private int indexOrCreate(int vmId, int userId) {
+        int id = indexOf(vmId, userId);
+        if (id != NO_HOST) {
+            return id;
+        }
+        if (vmId < 0 || userId < 0) {
+            throw new IllegalArgumentException("Invalid VM #" + vmId + " of user #" + userId);
+        }
+        if (userId >= vmIndex.length) {
+            vmIndex = Arrays.copyOf(vmIndex, Math.max(userId + 1, vmIndex.length * 2));
+        }
+        int[] row = vmIndex[userId];
+        if (row == null || vmId >= row.length) {
+            int old = row == null ? 0 : row.length;
+            int size = Math.max(vmId + 1, Math.max(16, old * 2));
+            row = row == null ? new int[size] : Arrays.copyOf(row, size);
+            Arrays.fill(row, old, size, NO_HOST);
+            vmIndex[userId] = row;
+        }
+        id = vmIndexCount++;
+        ensureVmCapacity(vmIndexCount);
+        row[vmId] = id;
+        vmUser[id] = userId;
+        this.vmId[id] = vmId;
+        return id;
+    }
+
+    private void ensureVmCapacity(int capacity) {
+        int old = vmHost == null ? 0 : vmHost.length;
+        if (capacity <= old) {
+            return;
+        }
+        int size = Math.max(capacity, old * 2);
+        vmHost = old == 0 ? new int[size] : Arrays.copyOf(vmHost, size);
+        Arrays.fill(vmHost, old, size, NO_HOST);
+        vmUser = old == 0 ? new int[size] : Arrays.copyOf(vmUser, size);
+        vmId = old == 0 ? new int[size] : Arrays.copyOf(vmId, size);
+        vmPes = old == 0 ? new int[size] : Arrays.copyOf(vmPes, size);
+        vmRam = old == 0 ? new int[size] : Arrays.copyOf(vmRam, size);
+        vmMips = old == 0 ? new double[size] : Arrays.copyOf(vmMips, size);
+        vmBw = old == 0 ? new long[size] : Arrays.copyOf(vmBw, size);
+    }
+
+}
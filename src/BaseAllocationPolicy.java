@@ -0,0 +1,515 @@
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyAbstract;
+
+/**
+ * Base das políticas de alocação de máquinas virtuais.
+ *
+ * Concentra o que era repetido em cada política: a tabela de alocação, a
+ * criação e a destruição das VMs nos hosts e a consulta do host de uma VM. A
+ * escolha do host fica a cargo de um {@link HostSelector}, que cada política
+ * define no seu construtor e que é avisado sempre que a capacidade livre de um
+ * host muda.
+ */
+public abstract class BaseAllocationPolicy extends PowerVmAllocationPolicyAbstract {
+
+    /**
+     * Tabela de alocação: host de cada VM e núcleos, Ram e Mips livres de cada
+     * host.
+     */
+    private AllocationTable allocationTable;
+
+    /**
+     * Heurística de escolha do host.
+     */
+    private HostSelector hostSelector;
+
+    /**
+     * Utilização de CPU de cada host, para as heurísticas que estimam energia.
+     */
+    private UtilizationCache utilizationCache;
+
+    /**
+     * Consolidação dinâmica executada pelo datacenter a cada intervalo de
+     * escalonamento.
+     */
+    private VmConsolidation consolidation;
+
+    /**
+     * Host planejado para cada VM por {@link #placeAll(List)}, pelo uid da VM.
+     * Consumido à medida que o datacenter cria as VMs.
+     */
+    private final Map<String, Integer> placementPlan = new HashMap<String, Integer>();
+
+    /**
+     * Ativo enquanto {@link #placeAll(List)} escolhe os hosts.
+     */
+    private boolean batchPlanning;
+
+    /**
+     * Quando ativo, confere a tabela de alocação com os provisionadores do
+     * host a cada alocação e liberação. Serve para depuração; deixa cada
+     * operação proporcional ao número de VMs do host.
+     */
+    private boolean checkConsistency;
+
+    /**
+     * Instrumentação da política; $null quando desligada.
+     */
+    private PolicyMetrics metrics;
+
+    /**
+     * Registro dos eventos da política; desligado por padrão.
+     */
+    private PolicyEventLog eventLog = PolicyEventLog.OFF;
+
+    public BaseAllocationPolicy(List<? extends Host> list) {
+        super(list);
+
+        setAllocationTable(new AllocationTable(getHostList()));
+        setUtilizationCache(new UtilizationCache(getAllocationTable()));
+        setConsolidation(new VmConsolidation(this));
+    }
+
+    /**
+     * Allocates a host for a VM: the host planned by {@link #placeAll(List)},
+     * if there is one and it still fits the VM, or else the host chosen by the
+     * host selector.
+     *
+     * @param vm the vm
+     * @return $true if the VM has been created in a host
+     */
+    @Override
+    public boolean allocateHostForVm(Vm vm) {
+        Integer planned = placementPlan.remove(vm.getUid());
+        if (planned != null && getAllocationTable().getHostAt(planned).isSuitableForVm(vm)) {
+            return allocateHostForVm(vm, getAllocationTable().getHostAt(planned));
+        }
+        return allocateHostForVm(vm, findHostForVm(vm));
+    }
+
+    /**
+     * Plans the placement of a whole list of VMs at once, before they are
+     * submitted to the datacenter. The VMs are sorted by decreasing pes and
+     * ram and placed in that order with the host selector, so a first fit
+     * policy becomes first fit decreasing and a best fit policy becomes best
+     * fit decreasing. The plan is recorded in the allocation table while it is
+     * built, so the selector sees the capacity already taken by the previous
+     * VMs, and is undone at the end; the VMs are then created in the planned
+     * hosts by {@link #allocateHostForVm(Vm)}, in any order.
+     *
+     * The plan checks the free ram and mips of the hosts but not the free pes
+     * filter of {@link #isSuitableForVm(int, Vm)}: with the largest VMs first,
+     * a 4 pe VM would leave its host without free pes and closed to any other
+     * VM, the opposite of what the sorting is for.
+     *
+     * @param vmList the vms
+     * @return the number of VMs that got a planned host
+     */
+    public int placeAll(List<? extends Vm> vmList) {
+        List<Vm> sorted = new ArrayList<Vm>(vmList);
+        Collections.sort(sorted, new Comparator<Vm>() {
+            @Override
+            public int compare(Vm vm1, Vm vm2) {
+                if (vm1.getNumberOfPes() != vm2.getNumberOfPes()) {
+                    return vm2.getNumberOfPes() - vm1.getNumberOfPes();
+                }
+                if (vm1.getRam() != vm2.getRam()) {
+                    return vm2.getRam() - vm1.getRam();
+                }
+                return vm1.getId() - vm2.getId();
+            }
+        });
+
+        List<Vm> planned = new ArrayList<Vm>();
+        batchPlanning = true;
+        try {
+            for (Vm vm : sorted) {
+                PowerHost host = findHostForVm(vm);
+                if (host != null) {
+                    int idx = getAllocationTable().slotOf(host);
+                    getAllocationTable().allocate(vm, idx);
+                    getHostSelector().hostUpdated(idx);
+                    placementPlan.put(vm.getUid(), idx);
+                    planned.add(vm);
+                }
+            }
+        } finally {
+            batchPlanning = false;
+            for (Vm vm : planned) {
+                getHostSelector().hostUpdated(getAllocationTable().deallocate(vm));
+            }
+        }
+        return planned.size();
+    }
+
+    @Override
+    public PowerHost findHostForVm(Vm vm) {
+        if (metrics == null) {
+            return getHostSelector().select(vm);
+        }
+        long start = System.nanoTime();
+        PowerHost host = getHostSelector().select(vm);
+        metrics.searched(System.nanoTime() - start, host != null);
+        return host;
+    }
+
+    /**
+     * Checks whether the host in a slot can receive a VM. This is the filter
+     * the original policies applied to every candidate host. While a
+     * consolidation round is being planned, the check is delegated to
+     * {@link VmConsolidation#isSuitableForVm(int, Vm)}; while a batch is
+     * being planned, only {@link AllocationTable#fits(int, Vm)} is checked,
+     * since the planned VMs were not created in the hosts.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     * @return $true if the host is suitable for the VM
+     */
+    public boolean isSuitableForVm(int slot, Vm vm) {
+        boolean suitable;
+        if (getConsolidation().isPlanning()) {
+            suitable = getConsolidation().isSuitableForVm(slot, vm);
+        } else if (batchPlanning) {
+            suitable = getAllocationTable().fits(slot, vm);
+        } else {
+            suitable = isHostSuitableForVm(slot, vm);
+        }
+        if (metrics != null) {
+            metrics.examined(suitable);
+        }
+        return suitable;
+    }
+
+    /**
+     * Gets the hosts that may pass {@link #isSuitableForVm(int, Vm)} for a
+     * VM: every host the filter accepts is in the set, so the selectors can
+     * skip the others without changing their choices. The set comes from the
+     * {@link VmShapeIndex} of the allocation table and only applies to VMs
+     * being created, whose requested capacity is their whole shape.
+     *
+     * @param vm the vm
+     * @return the candidate host slots, not to be modified; $null if no set
+     * applies, e.g. while a consolidation round is being planned
+     */
+    public BitSet getCandidateHosts(Vm vm) {
+        if (getConsolidation().isPlanning() || !vm.isBeingInstantiated()) {
+            return null;
+        }
+        VmShapeIndex shapes = getAllocationTable().getShapes();
+        int shape = shapes.shapeOf(vm);
+        if (shape < 0) {
+            return null;
+        }
+        return batchPlanning ? shapes.getFits(shape) : getOpenHosts(shapes, shape);
+    }
+
+    /**
+     * Gets the candidate hosts of a VM shape during a regular allocation:
+     * every host accepted by {@link #isHostSuitableForVm(int, Vm)} must be
+     * in the set.
+     *
+     * @param shapes the shape index
+     * @param shape the shape
+     * @return the candidate host slots, not to be modified
+     */
+    protected BitSet getOpenHosts(VmShapeIndex shapes, int shape) {
+        return isFreePesRequired() ? shapes.getOpen(shape) : shapes.getRoom(shape);
+    }
+
+    /**
+     * Checks whether a host can receive a VM during a regular allocation: the
+     * host must fit the VM and, if {@link #isFreePesRequired()}, have free
+     * pes left.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     * @return $true if the host is suitable for the VM
+     */
+    protected boolean isHostSuitableForVm(int slot, Vm vm) {
+        return (!isFreePesRequired() || getAllocationTable().getFreePes(slot) > 0)
+                && getAllocationTable().getHostAt(slot).isSuitableForVm(vm);
+    }
+
+    /**
+     * Checks whether the filter of the policy only accepts hosts with free
+     * pes left, as the original policies did. The consolidation planning
+     * applies the same rule, counting the pes of the planned migrations.
+     *
+     * @return $true if hosts without free pes are rejected
+     */
+    protected boolean isFreePesRequired() {
+        return true;
+    }
+
+    @Override
+    public boolean allocateHostForVm(Vm vm, Host host) {
+        if (metrics == null) {
+            return createVm(vm, host);
+        }
+        long start = System.nanoTime();
+        boolean allocated = createVm(vm, host);
+        metrics.allocated(System.nanoTime() - start, allocated);
+        return allocated;
+    }
+
+    /**
+     * Creates a VM in a host and records it.
+     *
+     * @param vm the vm
+     * @param host the host; $null if none was found
+     * @return $true if the VM has been created in the host
+     */
+    private boolean createVm(Vm vm, Host host) {
+        if (host == null) {
+            getEventLog().log(PolicyEventLog.Type.NO_HOST, CloudSim.clock(), vm.getId(), 0);
+            return false;
+        }
+        if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
+            int idx = getAllocationTable().slotOf(host);
+            getAllocationTable().allocate(vm, idx);
+            getUtilizationCache().vmCreated(idx, vm);
+            getHostSelector().hostUpdated(idx);
+            if (isCheckConsistency()) {
+                getAllocationTable().verify(idx);
+            }
+
+            getEventLog().log(PolicyEventLog.Type.ALLOCATED, CloudSim.clock(), vm.getId(), host.getId());
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Releases the host used by a VM.
+     *
+     * @param vm the vm
+     * @pre $none
+     * @post none
+     */
+    @Override
+    public void deallocateHostForVm(Vm vm) {
+        if (metrics == null) {
+            destroyVm(vm);
+            return;
+        }
+        long start = System.nanoTime();
+        destroyVm(vm);
+        metrics.deallocated(System.nanoTime() - start);
+    }
+
+    private void destroyVm(Vm vm) {
+        int idx = getAllocationTable().deallocate(vm);
+        if (idx != AllocationTable.NO_HOST) {
+            Host host = getAllocationTable().getHostAt(idx);
+            getUtilizationCache().vmDestroying(idx, vm);
+            host.vmDestroy(vm);
+            getHostSelector().hostUpdated(idx);
+            getEventLog().log(PolicyEventLog.Type.DEALLOCATED, CloudSim.clock(), vm.getId(), host.getId());
+            if (isCheckConsistency()) {
+                getAllocationTable().verify(idx);
+            }
+        }
+    }
+
+    /**
+     * Plans the migrations of a consolidation round.
+     *
+     * @param vmList the vms of the datacenter
+     * @return the migration map
+     * @see VmConsolidation#optimize(List)
+     */
+    @Override
+    public List<Map<String, Object>> optimizeAllocation(List<? extends Vm> vmList) {
+        return getConsolidation().optimize(vmList);
+    }
+
+    /**
+     * Gets the host that is executing the given VM belonging to the given user.
+     *
+     * @param vm the vm
+     * @return the Host with the given vmID and userID; $null if not found
+     * @pre $none
+     * @post $none
+     */
+    @Override
+    public Host getHost(Vm vm) {
+        return getAllocationTable().getHost(vm.getId(), vm.getUserId());
+    }
+
+    /**
+     * Gets the host that is executing the given VM belonging to the given user.
+     *
+     * @param vmId the vm id
+     * @param userId the user id
+     * @return the Host with the given vmID and userID; $null if not found
+     * @pre $none
+     * @post $none
+     */
+    @Override
+    public Host getHost(int vmId, int userId) {
+        return getAllocationTable().getHost(vmId, userId);
+    }
+
+    /**
+     * Gets a snapshot of the vm table, built from the allocation table.
+     *
+     * @return the vm table
+     */
+    @Override
+    public Map<String, Host> getVmTable() {
+        return getAllocationTable().toVmTable();
+    }
+
+    /**
+     * Gets the allocation table.
+     *
+     * @return the allocation table
+     */
+    public AllocationTable getAllocationTable() {
+        return allocationTable;
+    }
+
+    /**
+     * Sets the allocation table.
+     *
+     * @param allocationTable the allocation table
+     */
+    protected void setAllocationTable(AllocationTable allocationTable) {
+        this.allocationTable = allocationTable;
+    }
+
+    /**
+     * Checks whether a batch is being planned by {@link #placeAll(List)}.
+     *
+     * @return $true while a batch is being planned
+     */
+    public boolean isBatchPlanning() {
+        return batchPlanning;
+    }
+
+    /**
+     * Checks whether the consistency check mode is enabled.
+     *
+     * @return $true if the bookkeeping is verified on every change
+     */
+    public boolean isCheckConsistency() {
+        return checkConsistency;
+    }
+
+    /**
+     * Enables or disables the consistency check mode, which verifies the free
+     * capacity of a host against its provisioners after every allocation and
+     * deallocation, and the cached cpu utilization on every query.
+     *
+     * @param checkConsistency $true to verify the bookkeeping
+     */
+    public void setCheckConsistency(boolean checkConsistency) {
+        this.checkConsistency = checkConsistency;
+        getUtilizationCache().setValidate(checkConsistency);
+    }
+
+    /**
+     * Gets the cpu utilization cache.
+     *
+     * @return the utilization cache
+     */
+    public UtilizationCache getUtilizationCache() {
+        return utilizationCache;
+    }
+
+    /**
+     * Sets the cpu utilization cache.
+     *
+     * @param utilizationCache the utilization cache
+     */
+    protected void setUtilizationCache(UtilizationCache utilizationCache) {
+        this.utilizationCache = utilizationCache;
+    }
+
+    /**
+     * Gets the instrumentation of the policy.
+     *
+     * @return the metrics; $null when disabled
+     */
+    public PolicyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables or disables the instrumentation of the policy.
+     *
+     * @param metrics the metrics to record into; $null to disable
+     */
+    public void setMetrics(PolicyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the event log of the policy.
+     *
+     * @return the event log; {@link PolicyEventLog#OFF} when disabled
+     */
+    public PolicyEventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Sets the event log of the policy.
+     *
+     * @param eventLog the event log
+     */
+    public void setEventLog(PolicyEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Gets the consolidation engine.
+     *
+     * @return the consolidation engine
+     */
+    public VmConsolidation getConsolidation() {
+        return consolidation;
+    }
+
+    /**
+     * Sets the consolidation engine.
+     *
+     * @param consolidation the consolidation engine
+     */
+    protected void setConsolidation(VmConsolidation consolidation) {
+        this.consolidation = consolidation;
+    }
+
+    /**
+     * Gets the host selector.
+     *
+     * @return the host selector
+     */
+    public HostSelector getHostSelector() {
+        return hostSelector;
+    }
+
+    /**
+     * Sets the host selector and binds it to this policy.
+     *
+     * @param hostSelector the host selector
+     */
+    protected void setHostSelector(HostSelector hostSelector) {
+        this.hostSelector = hostSelector;
+        hostSelector.init(this);
+    }
+
+}
@@ -0,0 +1,221 @@
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Resultados em formato binário colunar, um arquivo por tabela:
+ * {@code <prefixo>_cloudlets.col}, {@code <prefixo>_vms.col} e
+ * {@code <prefixo>_hosts.col}.
+ *
+ * As linhas são agrupadas em blocos de até {@link #ROW_GROUP_SIZE} linhas e,
+ * dentro de cada bloco, os valores de uma coluna ficam juntos, o que permite
+ * ler uma coluna sem interpretar as outras. Todos os números são big-endian,
+ * como lidos pelo {@link DataInputStream}:
+ * <pre>
+ * int magic ('TCCC'), int versão (1), int número de colunas
+ * por coluna: byte tipo (0 = int32, 1 = float64), short tamanho e nome em UTF-8
+ * por bloco: int número de linhas, seguido dos valores de cada coluna
+ * int 0 no fim do arquivo
+ * </pre>
+ */
+public class ColumnarResultSink extends ResultSink {
+
+    public static final int MAGIC = 0x54434343;
+
+    public static final int VERSION = 1;
+
+    public static final int ROW_GROUP_SIZE = 4096;
+
+    private final FileChannel[] channels = new FileChannel[Table.values().length];
+
+    /**
+     * Valores do bloco atual de cada tabela, por coluna e linha; os ints
+     * cabem sem perda em um double.
+     */
+    private final double[][][] values = new double[Table.values().length][][];
+
+    private final int[] rows = new int[Table.values().length];
+
+    private final int[] column = new int[Table.values().length];
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates the files of the tables and writes their headers.
+     *
+     * @param folder the folder of the files, created if needed
+     * @param prefix the prefix of the file names
+     * @throws IOException if a file cannot be created
+     */
+    public ColumnarResultSink(File folder, String prefix) throws IOException {
+        folder.mkdirs();
+        int maxColumns = 0;
+        for (Table table : Table.values()) {
+            maxColumns = Math.max(maxColumns, table.getColumnCount());
+        }
+        buffer = ByteBuffer.allocate(Integer.SIZE / 8 + maxColumns * ROW_GROUP_SIZE * Double.SIZE / 8);
+
+        for (Table table : Table.values()) {
+            int t = table.ordinal();
+            channels[t] = FileChannel.open(new File(folder, prefix + "_" + table.getName() + ".col").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            values[t] = new double[table.getColumnCount()][ROW_GROUP_SIZE];
+
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(table.getColumnCount());
+            for (int c = 0; c < table.getColumnCount(); c++) {
+                byte[] name = table.getColumn(c).getBytes(StandardCharsets.UTF_8);
+                buffer.put((byte) (table.isDecimal(c) ? 1 : 0)).putShort((short) name.length).put(name);
+            }
+            write(t);
+        }
+    }
+
+    @Override
+    protected void putInt(Table table, int value) {
+        int t = table.ordinal();
+        values[t][column[t]++][rows[t]] = value;
+    }
+
+    @Override
+    protected void putDouble(Table table, double value) {
+        int t = table.ordinal();
+        values[t][column[t]++][rows[t]] = value;
+    }
+
+    @Override
+    protected void endRow(Table table) {
+        int t = table.ordinal();
+        column[t] = 0;
+        if (++rows[t] == ROW_GROUP_SIZE) {
+            writeRowGroup(table);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Table table : Table.values()) {
+            int t = table.ordinal();
+            if (rows[t] > 0) {
+                writeRowGroup(table);
+            }
+            buffer.clear();
+            buffer.putInt(0);
+            write(t);
+            channels[t].close();
+        }
+    }
+
+    private void writeRowGroup(Table table) {
+        int t = table.ordinal();
+        buffer.clear();
+        buffer.putInt(rows[t]);
+        for (int c = 0; c < table.getColumnCount(); c++) {
+            double[] columnValues = values[t][c];
+            if (table.isDecimal(c)) {
+                for (int row = 0; row < rows[t]; row++) {
+                    buffer.putDouble(columnValues[row]);
+                }
+            } else {
+                for (int row = 0; row < rows[t]; row++) {
+                    buffer.putInt((int) columnValues[row]);
+                }
+            }
+        }
+        write(t);
+        rows[t] = 0;
+    }
+
+    private void write(int t) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channels[t].write(buffer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the " + Table.values()[t].getName() + " results", e);
+        }
+    }
+
+    /**
+     * Reads one column of a file written by this sink, skipping the values of
+     * the other columns.
+     *
+     * @param file the file
+     * @param name the column name
+     * @return the values of the column, in row order
+     * @throws IOException if the file cannot be read or has no such column
+     */
+    public static double[] readColumn(File file, String name) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a columnar result file");
+            }
+            int columns = in.readInt();
+            boolean[] decimal = new boolean[columns];
+            int wanted = -1;
+            for (int c = 0; c < columns; c++) {
+                decimal[c] = in.readByte() == 1;
+                byte[] columnName = new byte[in.readShort()];
+                in.readFully(columnName);
+                if (new String(columnName, StandardCharsets.UTF_8).equals(name)) {
+                    wanted = c;
+                }
+            }
+            if (wanted < 0) {
+                throw new IOException(file + " has no column " + name);
+            }
+
+            double[] result = new double[ROW_GROUP_SIZE];
+            int size = 0;
+            int groupRows;
+            while ((groupRows = in.readInt()) > 0) {
+                if (size + groupRows > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, size + groupRows));
+                }
+                for (int c = 0; c < columns; c++) {
+                    int width = decimal[c] ? 8 : 4;
+                    if (c != wanted) {
+                        skipFully(in, groupRows * width);
+                    } else if (decimal[c]) {
+                        for (int row = 0; row < groupRows; row++) {
+                            result[size + row] = in.readDouble();
+                        }
+                    } else {
+                        for (int row = 0; row < groupRows; row++) {
+                            result[size + row] = in.readInt();
+                        }
+                    }
+                }
+                size += groupRows;
+            }
+            return Arrays.copyOf(result, size);
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated", e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = in.skipBytes(bytes);
+            if (skipped == 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+
+import java.util.List;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.power.PowerDatacenter;
+
+/**
+ * Datacenter que conta os eventos que processa, para o benchmark da
+ * simulação completa. Fora a contagem, é um {@link PowerDatacenter} comum.
+ */
+public class CountingPowerDatacenter extends PowerDatacenter {
+
+    private long processedEvents;
+
+    public CountingPowerDatacenter(
+            String name,
+            DatacenterCharacteristics characteristics,
+            VmAllocationPolicy vmAllocationPolicy,
+            List<Storage> storageList,
+            double schedulingInterval) throws Exception {
+        super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        processedEvents++;
+        super.processEvent(ev);
+    }
+
+    /**
+     * Gets the number of events processed so far.
+     *
+     * @return the number of events
+     */
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+}
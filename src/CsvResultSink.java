@@ -0,0 +1,132 @@
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Resultados em csv, um arquivo por tabela: {@code <prefixo>_cloudlets.csv},
+ * {@code <prefixo>_vms.csv} e {@code <prefixo>_hosts.csv}.
+ *
+ * Os valores são escritos como texto direto em um buffer de bytes por
+ * tabela, que é gravado no canal do arquivo quando enche.
+ */
+public class CsvResultSink extends ResultSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Espaço mínimo livre no buffer antes de escrever um valor; um double
+     * em texto ocupa no máximo 25 bytes.
+     */
+    private static final int MAX_VALUE_LENGTH = 32;
+
+    private final FileChannel[] channels = new FileChannel[Table.values().length];
+
+    private final ByteBuffer[] buffers = new ByteBuffer[Table.values().length];
+
+    /**
+     * Se a linha atual de cada tabela ainda não tem valores.
+     */
+    private final boolean[] rowStart = new boolean[Table.values().length];
+
+    private final StringBuilder text = new StringBuilder(MAX_VALUE_LENGTH);
+
+    /**
+     * Creates the files of the tables and writes their headers.
+     *
+     * @param folder the folder of the files, created if needed
+     * @param prefix the prefix of the file names
+     * @throws IOException if a file cannot be created
+     */
+    public CsvResultSink(File folder, String prefix) throws IOException {
+        folder.mkdirs();
+        for (Table table : Table.values()) {
+            int t = table.ordinal();
+            channels[t] = FileChannel.open(new File(folder, prefix + "_" + table.getName() + ".csv").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffers[t] = ByteBuffer.allocate(BUFFER_SIZE);
+            rowStart[t] = true;
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                separate(t);
+                putText(t, table.getColumn(column));
+            }
+            endRow(table);
+        }
+    }
+
+    @Override
+    protected void putInt(Table table, int value) {
+        int t = table.ordinal();
+        separate(t);
+        text.setLength(0);
+        text.append(value);
+        putText(t, text);
+    }
+
+    @Override
+    protected void putDouble(Table table, double value) {
+        int t = table.ordinal();
+        separate(t);
+        text.setLength(0);
+        text.append(value);
+        putText(t, text);
+    }
+
+    @Override
+    protected void endRow(Table table) {
+        int t = table.ordinal();
+        reserve(t);
+        buffers[t].put((byte) '\n');
+        rowStart[t] = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int t = 0; t < channels.length; t++) {
+            flush(t);
+            channels[t].close();
+        }
+    }
+
+    private void separate(int t) {
+        if (rowStart[t]) {
+            rowStart[t] = false;
+        } else {
+            reserve(t);
+            buffers[t].put((byte) ',');
+        }
+    }
+
+    /**
+     * Writes ascii text, such as numbers and column names.
+     */
+    private void putText(int t, CharSequence value) {
+        reserve(t);
+        ByteBuffer buffer = buffers[t];
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private void reserve(int t) {
+        if (buffers[t].remaining() < MAX_VALUE_LENGTH) {
+            flush(t);
+        }
+    }
+
+    private void flush(int t) {
+        ByteBuffer buffer = buffers[t];
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channels[t].write(buffer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the " + Table.values()[t].getName() + " results", e);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,387 @@
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.power.PowerDatacenter;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Datacenter que só recalcula os hosts em que algo mudou, em vez de todos a
+ * cada intervalo de escalonamento.
+ *
+ * Um host é atualizado quando a utilização de alguma das suas VMs mudou desde
+ * a última atualização dele, quando um cloudlet seu termina, quando recebe um
+ * cloudlet novo, quando o conjunto das suas VMs muda ou quando alguma VM está
+ * migrando ou acabou de migrar. Nos demais hosts os Mips alocados não mudaram,
+ * então o progresso dos cloudlets é o mesmo quando calculado de uma vez na
+ * próxima atualização, e a energia do intervalo é a potência da utilização
+ * atual vezes a duração.
+ *
+ * As atualizações continuam nos instantes do intervalo de escalonamento
+ * enquanto a utilização pode mudar ou enquanto a última atualização mudou
+ * algum host ou começou migrações. Com a utilização constante
+ * ({@link #setSteadyUtilization(boolean)}) e nada mudando, a próxima
+ * atualização é a do término do próximo cloudlet ou, se não houver nenhum
+ * antes do fim da simulação ({@link #setEndTime(double)}), o último
+ * instante do intervalo antes do fim, o mesmo em que o {@link PowerDatacenter}
+ * faz a última contabilização de energia.
+ *
+ * O histórico de utilização das VMs e dos hosts só recebe valores nas
+ * atualizações do próprio host; nos hosts pulados, os valores que faltam
+ * seriam iguais ao anterior.
+ */
+public class EventDrivenPowerDatacenter extends CountingPowerDatacenter {
+
+    private final Map<Host, Integer> slots = new HashMap<Host, Integer>();
+
+    /**
+     * VMs de cada host na última atualização dele.
+     */
+    private final Vm[][] lastVms;
+
+    /**
+     * Término estimado do próximo cloudlet de cada host.
+     */
+    private final double[] nextFinish;
+
+    /**
+     * Hosts que receberam cloudlets desde a última atualização.
+     */
+    private final boolean[] dirty;
+
+    /**
+     * Hosts com VMs migrando na última atualização deles; o fim da migração
+     * muda os Mips alocados sem mudar as VMs do host.
+     */
+    private final boolean[] migrating;
+
+    /**
+     * Hosts atualizados na última atualização.
+     */
+    private final boolean[] updated;
+
+    private boolean steadyUtilization;
+
+    private double endTime = Double.MAX_VALUE;
+
+    /**
+     * Próximo instante do intervalo de escalonamento.
+     */
+    private double nextIntervalTime = -1;
+
+    private int changedHosts;
+
+    private long hostUpdates;
+
+    private long skippedHostUpdates;
+
+    public EventDrivenPowerDatacenter(
+            String name,
+            DatacenterCharacteristics characteristics,
+            VmAllocationPolicy vmAllocationPolicy,
+            List<Storage> storageList,
+            double schedulingInterval) throws Exception {
+        super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+        List<Host> hosts = getHostList();
+        for (int slot = 0; slot < hosts.size(); slot++) {
+            slots.put(hosts.get(slot), slot);
+        }
+        lastVms = new Vm[hosts.size()][];
+        nextFinish = new double[hosts.size()];
+        dirty = new boolean[hosts.size()];
+        migrating = new boolean[hosts.size()];
+        updated = new boolean[hosts.size()];
+        Arrays.fill(dirty, true);
+    }
+
+    /**
+     * Updates the hosts that changed and schedules the next update. Same as
+     * {@link PowerDatacenter}, except for the time of the next update.
+     */
+    @Override
+    protected void updateCloudletProcessing() {
+        if (getCloudletSubmitted() == -1 || getCloudletSubmitted() == CloudSim.clock()) {
+            CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.VM_DATACENTER_EVENT));
+            schedule(getId(), getSchedulingInterval(), CloudSimTags.VM_DATACENTER_EVENT);
+            nextIntervalTime = CloudSim.clock() + getSchedulingInterval();
+            return;
+        }
+        double currentTime = CloudSim.clock();
+
+        if (currentTime > getLastProcessTime()) {
+            System.out.print(currentTime + " ");
+
+            double minTime = updateCloudetProcessingWithoutSchedulingFutureEventsForce();
+
+            int migrations = 0;
+            if (!isDisableMigrations()) {
+                List<Map<String, Object>> migrationMap = getVmAllocationPolicy().optimizeAllocation(getVmList());
+                if (migrationMap != null) {
+                    for (Map<String, Object> migrate : migrationMap) {
+                        startMigration(migrate, currentTime);
+                    }
+                    migrations = migrationMap.size();
+                }
+            }
+
+            if (minTime != Double.MAX_VALUE) {
+                double next = Math.min(minTime, nextUpdateTime(currentTime, migrations > 0));
+                CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.VM_DATACENTER_EVENT));
+                send(getId(), Math.max(next - currentTime, CloudSim.getMinTimeBetweenEvents()),
+                        CloudSimTags.VM_DATACENTER_EVENT);
+            }
+
+            setLastProcessTime(currentTime);
+        }
+    }
+
+    /**
+     * Gets the time of the next update on the scheduling interval: the next
+     * one, while the utilization may change or the last update changed
+     * something, or else the last one before the end of the simulation.
+     */
+    private double nextUpdateTime(double currentTime, boolean migrating) {
+        while (nextIntervalTime <= currentTime) {
+            nextIntervalTime += getSchedulingInterval();
+        }
+        if (!steadyUtilization || changedHosts > 0 || migrating || endTime == Double.MAX_VALUE) {
+            return nextIntervalTime;
+        }
+        double time = nextIntervalTime;
+        while (time + getSchedulingInterval() <= endTime) {
+            time += getSchedulingInterval();
+        }
+        return time;
+    }
+
+    private void startMigration(Map<String, Object> migrate, double currentTime) {
+        Vm vm = (Vm) migrate.get("vm");
+        PowerHost targetHost = (PowerHost) migrate.get("host");
+        PowerHost oldHost = (PowerHost) vm.getHost();
+
+        if (oldHost == null) {
+            Log.formatLine(
+                    "%.2f: Migration of VM #%d to Host #%d is started",
+                    currentTime,
+                    vm.getId(),
+                    targetHost.getId());
+        } else {
+            Log.formatLine(
+                    "%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
+                    currentTime,
+                    vm.getId(),
+                    oldHost.getId(),
+                    targetHost.getId());
+        }
+
+        targetHost.addMigratingInVm(vm);
+        incrementMigrationCount();
+
+        // mesmo atraso do PowerDatacenter: Ram / metade da banda do destino
+        send(
+                getId(),
+                vm.getRam() / ((double) targetHost.getBw() / (2 * 8000)),
+                CloudSimTags.VM_MIGRATE,
+                migrate);
+    }
+
+    /**
+     * Updates the hosts that changed since their last update and adds the
+     * energy of every host since the last update of the datacenter.
+     *
+     * @return the estimated finish time of the next cloudlet
+     */
+    @Override
+    protected double updateCloudetProcessingWithoutSchedulingFutureEventsForce() {
+        double currentTime = CloudSim.clock();
+        double minTime = Double.MAX_VALUE;
+        double timeDiff = currentTime - getLastProcessTime();
+        double timeFrameDatacenterEnergy = 0.0;
+
+        Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
+
+        List<PowerHost> hosts = getHostList();
+        changedHosts = 0;
+        for (int slot = 0; slot < hosts.size(); slot++) {
+            PowerHost host = hosts.get(slot);
+            double previousUtilizationOfCpu;
+            updated[slot] = isChanged(slot, host, currentTime);
+            if (updated[slot]) {
+                nextFinish[slot] = host.updateVmsProcessing(currentTime);
+                lastVms[slot] = host.getVmList().toArray(new Vm[host.getVmList().size()]);
+                dirty[slot] = false;
+                migrating[slot] = isMigrating(host);
+                previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu();
+                changedHosts++;
+                hostUpdates++;
+                Log.formatLine(
+                        "%.2f: [Host #%d] utilization is %.2f%%",
+                        currentTime,
+                        host.getId(),
+                        host.getUtilizationOfCpu() * 100);
+            } else {
+                previousUtilizationOfCpu = host.getUtilizationOfCpu();
+                skippedHostUpdates++;
+            }
+            minTime = Math.min(minTime, nextFinish[slot]);
+            if (timeDiff > 0) {
+                timeFrameDatacenterEnergy += host.getEnergyLinearInterpolation(
+                        previousUtilizationOfCpu,
+                        host.getUtilizationOfCpu(),
+                        timeDiff);
+            }
+        }
+
+        if (timeDiff > 0) {
+            Log.formatLine(
+                    "%.2f: Data center's energy from %.2f is %.2f W*sec, %d of %d hosts updated",
+                    currentTime,
+                    getLastProcessTime(),
+                    timeFrameDatacenterEnergy,
+                    changedHosts,
+                    hosts.size());
+        }
+
+        setPower(getPower() + timeFrameDatacenterEnergy);
+
+        for (int slot = 0; slot < hosts.size(); slot++) {
+            if (!updated[slot]) {
+                continue;
+            }
+            PowerHost host = hosts.get(slot);
+            for (Vm vm : host.getVmList()) {
+                while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+                    Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+                    if (cl != null) {
+                        sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+                    }
+                }
+            }
+            for (Vm vm : host.getCompletedVms()) {
+                getVmAllocationPolicy().deallocateHostForVm(vm);
+                getVmList().remove(vm);
+                Log.printLine("VM #" + vm.getId() + " has been deallocated from host #" + host.getId());
+            }
+        }
+
+        setLastProcessTime(currentTime);
+        return minTime;
+    }
+
+    /**
+     * Checks whether a host must be updated: it received cloudlets, a
+     * cloudlet of it may have finished, its VMs changed or are migrating, or
+     * the utilization of one of its VMs changed since its last update.
+     */
+    private boolean isChanged(int slot, PowerHost host, double currentTime) {
+        if (dirty[slot] || migrating[slot] || nextFinish[slot] <= currentTime
+                || !host.getVmsMigratingIn().isEmpty()) {
+            return true;
+        }
+        List<Vm> vms = host.getVmList();
+        if (vms.size() != lastVms[slot].length) {
+            return true;
+        }
+        for (int i = 0; i < vms.size(); i++) {
+            Vm vm = vms.get(i);
+            if (vm != lastVms[slot][i] || vm.isInMigration()) {
+                return true;
+            }
+            double previousTime = vm.getCloudletScheduler().getPreviousTime();
+            if (vm.getTotalUtilizationOfCpu(currentTime) != vm.getTotalUtilizationOfCpu(previousTime)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isMigrating(PowerHost host) {
+        if (!host.getVmsMigratingIn().isEmpty()) {
+            return true;
+        }
+        for (Vm vm : host.getVmList()) {
+            if (vm.isInMigration()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void processCloudletSubmit(SimEvent ev, boolean ack) {
+        super.processCloudletSubmit(ev, ack);
+        Cloudlet cl = (Cloudlet) ev.getData();
+        Host host = getVmAllocationPolicy().getHost(cl.getVmId(), cl.getUserId());
+        if (host != null) {
+            dirty[slots.get(host)] = true;
+        }
+    }
+
+    @Override
+    protected void processCloudlet(SimEvent ev, int type) {
+        super.processCloudlet(ev, type);
+        Arrays.fill(dirty, true);
+    }
+
+    /**
+     * Sets whether the utilization of the cloudlets never changes, as with
+     * full utilization. Then the updates on the scheduling interval stop
+     * while nothing changes.
+     *
+     * @param steadyUtilization $true if the utilization is constant
+     */
+    public void setSteadyUtilization(boolean steadyUtilization) {
+        this.steadyUtilization = steadyUtilization;
+    }
+
+    public boolean isSteadyUtilization() {
+        return steadyUtilization;
+    }
+
+    /**
+     * Sets the time the simulation ends, the last update needed when nothing
+     * changes.
+     *
+     * @param endTime the end time; Double.MAX_VALUE if unknown, which keeps
+     * every update on the scheduling interval
+     */
+    public void setEndTime(double endTime) {
+        this.endTime = endTime;
+    }
+
+    public double getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the number of host updates done.
+     *
+     * @return the host updates
+     */
+    public long getHostUpdates() {
+        return hostUpdates;
+    }
+
+    /**
+     * Gets the number of host updates skipped because nothing changed in the
+     * host.
+     *
+     * @return the skipped host updates
+     */
+    public long getSkippedHostUpdates() {
+        return skippedHostUpdates;
+    }
+
+}
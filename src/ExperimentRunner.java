@@ -0,0 +1,457 @@
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.cloudbus.cloudsim.Log;
+
+/**
+ * Executa uma matriz de cenários (políticas × números de hosts × números de
+ * VMs × sementes) em paralelo e junta as métricas em um único relatório.
+ *
+ * O CloudSim guarda a simulação em campos estáticos, então cada cenário roda
+ * em um processo próprio, iniciado com o mesmo classpath por
+ * {@link Main#main(String[])}, que grava os resultados de
+ * {@code Helper.printResults} em csv na pasta de saída e devolve as métricas
+ * em uma linha {@link ScenarioResult}. Os processos são disparados por um pool
+ * com tantas threads quantos forem os núcleos da máquina.
+ *
+ * No modo isolado ({@code mode=isolated}) os cenários rodam todos nesta JVM:
+ * cada thread do pool tem o seu próprio class loader, com uma cópia própria
+ * das classes do CloudSim e do projeto e, portanto, dos seus campos
+ * estáticos, e executa nele um cenário após o outro. Cenários de threads
+ * diferentes não compartilham estado, e os de uma mesma thread reaproveitam as
+ * classes já carregadas e compiladas pelo JIT, sem o custo de subir uma JVM
+ * por cenário.
+ *
+ * Nos dois modos, um cenário que falha (por exemplo, com mais VMs do que cabem
+ * nos hosts) aparece como falho no log e fica fora do relatório, e o runner
+ * termina com código 1 depois de escrever o relatório dos demais.
+ *
+ * Com {@code scenario=arquivo}, a matriz e os tipos de host e de VM vêm de um
+ * arquivo de {@link ScenarioConfig}, validado aqui antes de qualquer cenário
+ * rodar e repassado a cada processo ou class loader; as opções seguintes
+ * ainda podem mudar a matriz.
+ *
+ * Com {@code check=true}, todos os cenários verificam a contabilidade das
+ * políticas a cada alocação, como com {@code check.consistency=true} no
+ * arquivo de cenário; uma inconsistência faz o cenário falhar.
+ *
+ * Uso: {@code ExperimentRunner [scenario=sweep.properties]
+ * [policies=FirstFit,Lago] [hosts=500,2000] [vms=2500] [seeds=1-10]
+ * [threads=8] [mode=fork|isolated] [check=true] [output=output/experiments]}.
+ */
+public class ExperimentRunner {
+
+    private List<String> policies = AllocationPolicies.NAMES;
+
+    private List<Integer> hosts = new ArrayList<Integer>();
+
+    private List<Integer> vms = new ArrayList<Integer>();
+
+    private List<Long> seeds = new ArrayList<Long>();
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private String outputFolder = "output/experiments";
+
+    /**
+     * Configuração dos cenários; $null quando nenhum arquivo foi informado e
+     * vale a configuração de cada processo.
+     */
+    private ScenarioConfig config;
+
+    /**
+     * Roda cada cenário em uma JVM própria ou, quando $true, em um class
+     * loader próprio da thread.
+     */
+    private boolean isolated;
+
+    /**
+     * Liga a verificação da contabilidade das políticas em todos os cenários.
+     */
+    private boolean checkConsistency;
+
+    /**
+     * Class loader de cada thread do pool, no modo isolado.
+     */
+    private final ThreadLocal<URLClassLoader> loaders = new ThreadLocal<URLClassLoader>();
+
+    /**
+     * Todos os class loaders criados, para fechá-los ao final.
+     */
+    private final List<URLClassLoader> createdLoaders = Collections.synchronizedList(new ArrayList<URLClassLoader>());
+
+    public ExperimentRunner() {
+        ScenarioConfig defaults = ScenarioConfig.getDefault();
+        hosts.addAll(defaults.getHosts());
+        vms.addAll(defaults.getVms());
+        seeds.addAll(defaults.getSeeds());
+    }
+
+    public static void main(String[] args) throws Exception {
+        ExperimentRunner runner = new ExperimentRunner();
+        for (String arg : args) {
+            runner.configure(arg);
+        }
+        List<ScenarioResult> results = runner.run();
+        runner.writeReport(results);
+        runner.printSummary(results);
+        if (results.size() < runner.getScenarios().size()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Applies one {@code key=value} option.
+     *
+     * @param option the option
+     * @throws IllegalArgumentException if the option is unknown or malformed
+     */
+    public void configure(String option) {
+        int eq = option.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Expected key=value, got " + option);
+        }
+        String key = option.substring(0, eq);
+        String value = option.substring(eq + 1);
+        switch (key) {
+            case "scenario":
+                try {
+                    config = ScenarioConfig.load(new File(value));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot read scenario " + value, e);
+                }
+                policies = new ArrayList<String>(config.getPolicies());
+                hosts = new ArrayList<Integer>(config.getHosts());
+                vms = new ArrayList<Integer>(config.getVms());
+                seeds = new ArrayList<Long>(config.getSeeds());
+                break;
+            case "policies":
+                policies = new ArrayList<String>();
+                for (String policy : value.split(",")) {
+                    if (!AllocationPolicies.NAMES.contains(policy)) {
+                        throw new IllegalArgumentException("Unknown allocation policy " + policy);
+                    }
+                    policies.add(policy);
+                }
+                break;
+            case "hosts":
+                hosts = ScenarioConfig.parseRanges(value);
+                break;
+            case "vms":
+                vms = ScenarioConfig.parseRanges(value);
+                break;
+            case "seeds":
+                seeds = new ArrayList<Long>();
+                for (Integer seed : ScenarioConfig.parseRanges(value)) {
+                    seeds.add((long) seed);
+                }
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "output":
+                outputFolder = value;
+                break;
+            case "mode":
+                if (!value.equals("fork") && !value.equals("isolated")) {
+                    throw new IllegalArgumentException("Unknown mode " + value + "; expected fork or isolated");
+                }
+                isolated = value.equals("isolated");
+                break;
+            case "check":
+                if (!value.equals("true") && !value.equals("false")) {
+                    throw new IllegalArgumentException("Expected check=true or check=false, got " + value);
+                }
+                checkConsistency = value.equals("true");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + key);
+        }
+    }
+
+    /**
+     * Builds the scenario matrix.
+     *
+     * @return one scenario per combination of policy, hosts, vms and seed
+     */
+    public List<Scenario> getScenarios() {
+        List<Scenario> scenarios = new ArrayList<Scenario>();
+        for (String policy : policies) {
+            for (int hostCount : hosts) {
+                for (int vmCount : vms) {
+                    for (long seed : seeds) {
+                        scenarios.add(config == null
+                                ? new Scenario(policy, hostCount, vmCount, seed)
+                                : new Scenario(policy, hostCount, vmCount, seed, config));
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Runs every scenario, each in its own JVM or class loader, at most
+     * {@code threads} at a time.
+     *
+     * @return the results, in the order of {@link #getScenarios()}; scenarios
+     * that failed are left out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<ScenarioResult> run() throws InterruptedException {
+        List<ScenarioResult> results = new ArrayList<ScenarioResult>();
+        new File(outputFolder).mkdirs();
+        List<Scenario> scenarios = getScenarios();
+        Log.printLine("Running " + scenarios.size() + " scenarios on " + threads + " threads");
+        if (checkConsistency) {
+            // lida pelo Main de cada class loader no modo isolado
+            System.setProperty("checkConsistency", "true");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<ScenarioResult>> futures = new ArrayList<Future<ScenarioResult>>();
+        for (final Scenario scenario : scenarios) {
+            futures.add(executor.submit(new Callable<ScenarioResult>() {
+                @Override
+                public ScenarioResult call() throws Exception {
+                    return isolated ? runInIsolatedLoader(scenario) : runInChildProcess(scenario);
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            collect(scenarios, futures, results);
+        } finally {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            closeLoaders();
+        }
+        return results;
+    }
+
+    private void collect(List<Scenario> scenarios, List<Future<ScenarioResult>> futures,
+            List<ScenarioResult> results) throws InterruptedException {
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ScenarioResult result = futures.get(i).get();
+                Log.printLine(scenarios.get(i) + ": " + result.getEnergy() + " kWh, "
+                        + result.getMigrations() + " migrations, " + result.getWallTimeMillis() + " ms");
+                results.add(result);
+            } catch (ExecutionException e) {
+                Log.printLine(scenarios.get(i) + ": failed: " + e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Runs a scenario in the class loader of the current thread, creating it
+     * on the first call. The loader reads the same classpath as this JVM but
+     * does not delegate to the application class loader, so CloudSim and the
+     * policies are loaded again, with static fields of their own. A scenario
+     * that fails leaves the loader behind, and the next scenario of the
+     * thread gets a new one.
+     */
+    private ScenarioResult runInIsolatedLoader(Scenario scenario) throws Exception {
+        URLClassLoader loader = loaders.get();
+        if (loader == null) {
+            String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+            URL[] urls = new URL[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                urls[i] = new File(entries[i]).toURI().toURL();
+            }
+            loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+            loaders.set(loader);
+            createdLoaders.add(loader);
+        }
+        Class<?> main = Class.forName(Main.class.getName(), true, loader);
+        try {
+            String line = (String) main.getMethod("runIsolated", String[].class, String.class, String.class)
+                    .invoke(null, scenario.toArgs(), outputFolder, config == null ? null : config.getFile().getPath());
+            return ScenarioResult.parse(line, scenario.getConfig());
+        } catch (InvocationTargetException e) {
+            loaders.remove();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void closeLoaders() {
+        for (URLClassLoader loader : createdLoaders) {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                Log.printLine("Could not close class loader: " + e.getMessage());
+            }
+        }
+        createdLoaders.clear();
+    }
+
+    private ScenarioResult runInChildProcess(Scenario scenario) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (config != null) {
+            command.add("-D" + ScenarioConfig.PROPERTY + "=" + config.getFile().getPath());
+        } else if (System.getProperty(ScenarioConfig.PROPERTY) != null) {
+            command.add("-D" + ScenarioConfig.PROPERTY + "=" + System.getProperty(ScenarioConfig.PROPERTY));
+        }
+        if (checkConsistency) {
+            command.add("-DcheckConsistency=true");
+        }
+        command.add(Main.class.getName());
+        for (String arg : scenario.toArgs()) {
+            command.add(arg);
+        }
+        command.add(outputFolder);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ScenarioResult result = null;
+        String lastLine = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ScenarioResult parsed = ScenarioResult.parse(line, scenario.getConfig());
+                if (parsed != null) {
+                    result = parsed;
+                } else if (!line.isEmpty()) {
+                    lastLine = line;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new IOException("exit code " + exitCode + (lastLine == null ? "" : ", last output: " + lastLine));
+        }
+        return result;
+    }
+
+    /**
+     * Writes one csv row per scenario to {@code report.csv} in the output
+     * folder, with the SLA metrics of {@link SlaMetrics#COLUMNS} after the
+     * energy and time columns.
+     *
+     * @param results the results
+     * @throws IOException if the file cannot be written
+     */
+    public void writeReport(List<ScenarioResult> results) throws IOException {
+        File file = new File(outputFolder, "report.csv");
+        PrintWriter out = new PrintWriter(file, "UTF-8");
+        try {
+            StringBuilder header = new StringBuilder("policy,hosts,vms,seed,energy_kwh,migrations,vms_created,"
+                    + "cloudlets_received,simulation_time,wall_time_ms");
+            for (String column : SlaMetrics.COLUMNS) {
+                header.append(',').append(column);
+            }
+            out.println(header);
+            for (ScenarioResult result : results) {
+                Scenario scenario = result.getScenario();
+                StringBuilder row = new StringBuilder();
+                row.append(scenario.getPolicyName()).append(',').append(scenario.getHosts()).append(',')
+                        .append(scenario.getVms()).append(',').append(scenario.getSeed()).append(',')
+                        .append(result.getEnergy()).append(',').append(result.getMigrations()).append(',')
+                        .append(result.getVmsCreated()).append(',').append(result.getCloudletsReceived()).append(',')
+                        .append(result.getSimulationTime()).append(',').append(result.getWallTimeMillis());
+                for (double value : result.getSlaMetrics().getValues()) {
+                    row.append(',').append(value);
+                }
+                out.println(row);
+            }
+        } finally {
+            out.close();
+        }
+        Log.printLine("Report written to " + file.getPath());
+    }
+
+    /**
+     * Prints the mean and standard deviation over the seeds of each policy,
+     * host count and VM count: energy, SLATAH, PDM, SLA and SLA violation,
+     * the last four in percent, plus the mean migrations, host shutdowns and
+     * wall time.
+     *
+     * @param results the results
+     */
+    public void printSummary(List<ScenarioResult> results) {
+        Map<String, List<ScenarioResult>> groups = new LinkedHashMap<String, List<ScenarioResult>>();
+        for (ScenarioResult result : results) {
+            Scenario scenario = result.getScenario();
+            String key = scenario.getPolicyName() + "\t" + scenario.getHosts() + "\t" + scenario.getVms();
+            if (!groups.containsKey(key)) {
+                groups.put(key, new ArrayList<ScenarioResult>());
+            }
+            groups.get(key).add(result);
+        }
+
+        Log.printLine();
+        Log.printLine("Policy\tHosts\tVMs\tRuns\tEnergy (kWh)\tSLATAH (%)\tPDM (%)\tSLA (%)\t"
+                + "SLA violation (%)\tMigrations\tHost shutdowns\tWall time (ms)");
+        for (Map.Entry<String, List<ScenarioResult>> group : groups.entrySet()) {
+            List<ScenarioResult> runs = group.getValue();
+            double[] energy = new double[runs.size()];
+            double[] slaTimePerActiveHost = new double[runs.size()];
+            double[] degradationDueToMigration = new double[runs.size()];
+            double[] sla = new double[runs.size()];
+            double[] slaViolation = new double[runs.size()];
+            double migrations = 0;
+            double hostShutdowns = 0;
+            double wallTime = 0;
+            for (int i = 0; i < runs.size(); i++) {
+                SlaMetrics metrics = runs.get(i).getSlaMetrics();
+                energy[i] = runs.get(i).getEnergy();
+                slaTimePerActiveHost[i] = metrics.getSlaTimePerActiveHost() * 100;
+                degradationDueToMigration[i] = metrics.getPerformanceDegradationDueToMigration() * 100;
+                sla[i] = metrics.getSla() * 100;
+                slaViolation[i] = metrics.getSlaViolation() * 100;
+                migrations += runs.get(i).getMigrations();
+                hostShutdowns += metrics.getHostShutdowns();
+                wallTime += runs.get(i).getWallTimeMillis();
+            }
+            Log.printLine(String.format("%s\t%d\t%.2f +/- %.2f\t%.2f +/- %.2f\t%.2f +/- %.2f\t%.5f +/- %.5f\t"
+                    + "%.2f +/- %.2f\t%.1f\t%.1f\t%.0f",
+                    group.getKey(), runs.size(), mean(energy), standardDeviation(energy),
+                    mean(slaTimePerActiveHost), standardDeviation(slaTimePerActiveHost),
+                    mean(degradationDueToMigration), standardDeviation(degradationDueToMigration),
+                    mean(sla), standardDeviation(sla), mean(slaViolation), standardDeviation(slaViolation),
+                    migrations / runs.size(), hostShutdowns / runs.size(), wallTime / runs.size()));
+        }
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double standardDeviation(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+}
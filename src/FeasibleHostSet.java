@@ -0,0 +1,129 @@
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Conjunto dos slots de hosts que ainda podem receber VMs.
+ *
+ * Inserção, remoção e sorteio custam O(1). Os slots ficam em um vetor denso e
+ * a posição de cada slot no vetor é guardada em outro, o que permite remover
+ * trocando com o último elemento.
+ */
+public class FeasibleHostSet {
+
+    /**
+     * Slots presentes no conjunto, nas posições 0 a size - 1.
+     */
+    private final int[] members;
+
+    /**
+     * Posição de cada slot em {@link #members}; -1 quando ausente.
+     */
+    private final int[] position;
+
+    private int size;
+
+    /**
+     * Creates an empty set for slots 0 to {@code capacity - 1}.
+     *
+     * @param capacity the number of host slots
+     */
+    public FeasibleHostSet(int capacity) {
+        this.members = new int[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Gets the number of slots in the set.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a slot is in the set.
+     *
+     * @param slot the slot
+     * @return $true if present
+     */
+    public boolean contains(int slot) {
+        return position[slot] >= 0;
+    }
+
+    /**
+     * Adds a slot to the set, if absent.
+     *
+     * @param slot the slot
+     */
+    public void add(int slot) {
+        if (position[slot] < 0) {
+            members[size] = slot;
+            position[slot] = size++;
+        }
+    }
+
+    /**
+     * Removes a slot from the set, if present.
+     *
+     * @param slot the slot
+     */
+    public void remove(int slot) {
+        int pos = position[slot];
+        if (pos >= 0) {
+            int last = members[--size];
+            members[pos] = last;
+            position[last] = pos;
+            position[slot] = -1;
+        }
+    }
+
+    /**
+     * Adds or removes a slot.
+     *
+     * @param slot the slot
+     * @param present $true to add, $false to remove
+     */
+    public void set(int slot, boolean present) {
+        if (present) {
+            add(slot);
+        } else {
+            remove(slot);
+        }
+    }
+
+    /**
+     * Gets the slot at a position of the internal order.
+     *
+     * @param index the position, from 0 to {@code size() - 1}
+     * @return the slot
+     */
+    public int get(int index) {
+        return members[index];
+    }
+
+    /**
+     * Moves a uniformly chosen slot among positions {@code from} to
+     * {@code size() - 1} to position {@code from} and returns it. Calling it
+     * with from = 0, 1, 2, ... draws slots without repetition (a partial
+     * Fisher-Yates shuffle), so a sequence of draws visits each slot at most
+     * once. The set contents do not change.
+     *
+     * @param random the random number generator
+     * @param from the first position still undrawn
+     * @return the drawn slot
+     */
+    public int draw(Random random, int from) {
+        int pick = from + random.nextInt(size - from);
+        int slot = members[pick];
+        int other = members[from];
+        members[pick] = other;
+        position[other] = pick;
+        members[from] = slot;
+        position[slot] = from;
+        return slot;
+    }
+
+}
@@ -0,0 +1,140 @@
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Primeiro host adequado na ordem dos slots, com uma árvore de segmentos
+ * sobre a Ram e os núcleos livres de cada host.
+ *
+ * Cada nó da árvore guarda a maior Ram livre e o maior número de núcleos
+ * livres entre os hosts do seu intervalo, e a busca desce só pelos nós que
+ * podem ter um host com Ram e núcleos suficientes. As duas condições são
+ * necessárias para o filtro do {@link BaseAllocationPolicy}, então nenhum
+ * host que a varredura linear aceitaria é pulado; os hosts encontrados ainda
+ * passam por {@link BaseAllocationPolicy#isSuitableForVm(int, Vm)} e as
+ * escolhas são as mesmas da varredura, sem visitar os hosts cheios do início
+ * da lista.
+ *
+ * Quando a política tem o conjunto de candidatos do formato da VM
+ * ({@link BaseAllocationPolicy#getCandidateHosts(Vm)}), a busca é só
+ * {@link BitSet#nextSetBit(int)} nele; a árvore fica para os casos sem
+ * conjunto, como o planejamento da consolidação.
+ */
+public class FirstFitHostSelector implements HostSelector {
+
+    private BaseAllocationPolicy policy;
+
+    /**
+     * Número de folhas, a menor potência de 2 que cobre todos os slots.
+     */
+    private int leaves;
+
+    /**
+     * Maior Ram e maior número de núcleos livres de cada nó; o nó 1 é a raiz,
+     * os filhos do nó i são 2i e 2i + 1 e a folha do slot s é leaves + s.
+     */
+    private int[] maxRam;
+
+    private int[] maxPes;
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        AllocationTable table = policy.getAllocationTable();
+        int hosts = table.getHostCount();
+        leaves = 1;
+        while (leaves < hosts) {
+            leaves <<= 1;
+        }
+        maxRam = new int[2 * leaves];
+        maxPes = new int[2 * leaves];
+        Arrays.fill(maxRam, Integer.MIN_VALUE);
+        Arrays.fill(maxPes, Integer.MIN_VALUE);
+        for (int slot = 0; slot < hosts; slot++) {
+            maxRam[leaves + slot] = table.getFreeRam(slot);
+            maxPes[leaves + slot] = table.getFreePes(slot);
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            maxRam[node] = Math.max(maxRam[2 * node], maxRam[2 * node + 1]);
+            maxPes[node] = Math.max(maxPes[2 * node], maxPes[2 * node + 1]);
+        }
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        if (table.getHostSlot(vm.getId(), vm.getUserId()) != AllocationTable.NO_HOST) {
+            // a Ram da própria VM conta como livre no host em que ela está
+            return scan(vm);
+        }
+        BitSet candidates = policy.getCandidateHosts(vm);
+        if (candidates != null) {
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (policy.isSuitableForVm(slot, vm)) {
+                    return table.getHostAt(slot);
+                }
+            }
+            return null;
+        }
+        int ram = vm.getCurrentRequestedRam();
+        int pes = policy.isBatchPlanning() ? Integer.MIN_VALUE : 1;
+        int slot = find(ram, pes, 0);
+        while (slot >= 0) {
+            if (policy.isSuitableForVm(slot, vm)) {
+                return table.getHostAt(slot);
+            }
+            slot = find(ram, pes, slot + 1);
+        }
+        return null;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        AllocationTable table = policy.getAllocationTable();
+        int node = leaves + slot;
+        maxRam[node] = table.getFreeRam(slot);
+        maxPes[node] = table.getFreePes(slot);
+        for (node >>= 1; node > 0; node >>= 1) {
+            maxRam[node] = Math.max(maxRam[2 * node], maxRam[2 * node + 1]);
+            maxPes[node] = Math.max(maxPes[2 * node], maxPes[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Finds the lowest slot from a given one with at least the given free ram
+     * and pes.
+     *
+     * @return the slot; -1 if there is none
+     */
+    private int find(int ram, int pes, int from) {
+        if (from >= leaves) {
+            return -1;
+        }
+        return find(1, 0, leaves, ram, pes, from);
+    }
+
+    private int find(int node, int start, int end, int ram, int pes, int from) {
+        if (end <= from || maxRam[node] < ram || maxPes[node] < pes) {
+            return -1;
+        }
+        if (node >= leaves) {
+            return start;
+        }
+        int middle = (start + end) >>> 1;
+        int slot = find(2 * node, start, middle, ram, pes, from);
+        return slot >= 0 ? slot : find(2 * node + 1, middle, end, ram, pes, from);
+    }
+
+    private PowerHost scan(Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        for (int slot = 0; slot < table.getHostCount(); slot++) {
+            if (policy.isSuitableForVm(slot, vm)) {
+                return table.getHostAt(slot);
+            }
+        }
+        return null;
+    }
+
+}
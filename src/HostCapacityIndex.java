@@ -0,0 +1,268 @@
+
+import java.util.Arrays;
+
+/**
+ * Índice de capacidade livre dos hosts.
+ *
+ * Mantém as posições (slots) dos hosts ordenadas pela capacidade livre
+ * (núcleos, Ram, ...) e, com a mesma capacidade, pelo slot, de forma que as
+ * consultas "menor capacidade que ainda comporta a VM" (best fit) e "maior
+ * capacidade" (worst fit) não precisam mais reordenar a lista de hosts a cada
+ * alocação.
+ *
+ * A ordem é uma treap em vetores de tipos primitivos em que cada slot é o seu
+ * próprio nó: a atualização custa O(log H) e não cria objetos, e a varredura
+ * é feita slot a slot ({@link #ascendingFirst(int)},
+ * {@link #ascendingNext(int)}), sem iteradores.
+ */
+public class HostCapacityIndex {
+
+    /**
+     * Valor dos filhos e da raiz vazios.
+     */
+    private static final int NIL = -1;
+
+    /**
+     * Capacidade livre atual de cada slot.
+     */
+    private final int[] capacity;
+
+    /**
+     * Filhos e prioridade de cada slot na treap.
+     */
+    private final int[] left;
+    private final int[] right;
+    private final int[] priority;
+
+    private int root = NIL;
+
+    /**
+     * Creates an index with the given initial capacity for each slot.
+     *
+     * @param initialCapacity the free capacity of each slot, indexed by slot
+     */
+    public HostCapacityIndex(int[] initialCapacity) {
+        int size = initialCapacity.length;
+        this.capacity = initialCapacity.clone();
+        this.left = new int[size];
+        this.right = new int[size];
+        this.priority = new int[size];
+        Arrays.fill(left, NIL);
+        Arrays.fill(right, NIL);
+        for (int slot = 0; slot < size; slot++) {
+            priority[slot] = mix(slot);
+            root = insert(root, slot);
+        }
+    }
+
+    /**
+     * Gets the number of slots in the index.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return capacity.length;
+    }
+
+    /**
+     * Gets the free capacity currently recorded for a slot.
+     *
+     * @param slot the slot
+     * @return the free capacity
+     */
+    public int get(int slot) {
+        return capacity[slot];
+    }
+
+    /**
+     * Updates the free capacity of a slot, moving it to its new position.
+     *
+     * @param slot the slot
+     * @param value the new free capacity
+     */
+    public void set(int slot, int value) {
+        if (capacity[slot] == value) {
+            return;
+        }
+        root = remove(root, slot);
+        capacity[slot] = value;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        root = insert(root, slot);
+    }
+
+    /**
+     * Adds a delta to the free capacity of a slot.
+     *
+     * @param slot the slot
+     * @param delta the amount to add (negative to consume capacity)
+     */
+    public void add(int slot, int delta) {
+        set(slot, capacity[slot] + delta);
+    }
+
+    /**
+     * Gets the tightest slot with free capacity of at least {@code min}, the
+     * first one in best fit order. Slots with the same capacity come in
+     * increasing slot order.
+     *
+     * @param min the minimum free capacity
+     * @return the slot; -1 if no slot has enough capacity
+     */
+    public int ascendingFirst(int min) {
+        return ceiling(min, 0);
+    }
+
+    /**
+     * Gets the slot after the given one in best fit order.
+     *
+     * @param slot the current slot
+     * @return the next slot; -1 after the loosest one
+     */
+    public int ascendingNext(int slot) {
+        return ceiling(capacity[slot], slot + 1);
+    }
+
+    /**
+     * Gets the loosest slot, the first one in worst fit order, if its free
+     * capacity is at least {@code min}. Slots with the same capacity come in
+     * increasing slot order.
+     *
+     * @param min the minimum free capacity
+     * @return the slot; -1 if no slot has enough capacity
+     */
+    public int descendingFirst(int min) {
+        int last = lower(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        if (last == NIL || capacity[last] < min) {
+            return NIL;
+        }
+        return ceiling(capacity[last], 0);
+    }
+
+    /**
+     * Gets the slot after the given one in worst fit order, as long as its
+     * free capacity is at least {@code min}.
+     *
+     * @param slot the current slot
+     * @param min the minimum free capacity
+     * @return the next slot; -1 if the next one has less capacity than
+     * {@code min} or there is none
+     */
+    public int descendingNext(int slot, int min) {
+        int value = capacity[slot];
+        int next = ceiling(value, slot + 1);
+        if (next != NIL && capacity[next] == value) {
+            return next;
+        }
+        int lower = lower(value, 0);
+        if (lower == NIL || capacity[lower] < min) {
+            return NIL;
+        }
+        return ceiling(capacity[lower], 0);
+    }
+
+    /**
+     * Gets the first slot at or after the position (value, slot).
+     */
+    private int ceiling(int value, int slot) {
+        int best = NIL;
+        int node = root;
+        while (node != NIL) {
+            if (capacity[node] > value || (capacity[node] == value && node >= slot)) {
+                best = node;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the last slot before the position (value, slot).
+     */
+    private int lower(int value, int slot) {
+        int best = NIL;
+        int node = root;
+        while (node != NIL) {
+            if (capacity[node] < value || (capacity[node] == value && node < slot)) {
+                best = node;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return best;
+    }
+
+    private boolean before(int a, int b) {
+        return capacity[a] < capacity[b] || (capacity[a] == capacity[b] && a < b);
+    }
+
+    private int insert(int node, int slot) {
+        if (node == NIL) {
+            return slot;
+        }
+        if (before(slot, node)) {
+            left[node] = insert(left[node], slot);
+            if (priority[left[node]] > priority[node]) {
+                int child = left[node];
+                left[node] = right[child];
+                right[child] = node;
+                return child;
+            }
+        } else {
+            right[node] = insert(right[node], slot);
+            if (priority[right[node]] > priority[node]) {
+                int child = right[node];
+                right[node] = left[child];
+                left[child] = node;
+                return child;
+            }
+        }
+        return node;
+    }
+
+    private int remove(int node, int slot) {
+        if (node == slot) {
+            return merge(left[node], right[node]);
+        }
+        if (before(slot, node)) {
+            left[node] = remove(left[node], slot);
+        } else {
+            right[node] = remove(right[node], slot);
+        }
+        return node;
+    }
+
+    /**
+     * Joins two treaps whose slots all come before the ones of the second.
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        return b;
+    }
+
+    /**
+     * Fixed pseudo-random priority of a slot, so the shape of the treap does
+     * not depend on a random seed.
+     */
+    private static int mix(int slot) {
+        int h = slot * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+}
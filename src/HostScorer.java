@@ -0,0 +1,39 @@
+
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * Ordem em que um {@link ScoredHostSelector} tenta os hosts.
+ *
+ * Cada host recebe uma nota inteira calculada a partir da tabela de alocação;
+ * os hosts são tentados da menor para a maior nota, ou o contrário quando
+ * {@link #isDescending()} é verdadeiro. Hosts com a mesma nota são tentados na
+ * ordem dos seus ids.
+ */
+public interface HostScorer {
+
+    /**
+     * Computes the score of a host.
+     *
+     * @param table the allocation table
+     * @param slot the host slot
+     * @return the score
+     */
+    int score(AllocationTable table, int slot);
+
+    /**
+     * Gets the lowest score a host needs to be considered for a VM. Hosts
+     * below it are never visited.
+     *
+     * @param vm the vm
+     * @return the minimum score
+     */
+    int minScore(Vm vm);
+
+    /**
+     * Checks whether hosts are tried from the highest to the lowest score.
+     *
+     * @return $true for descending order
+     */
+    boolean isDescending();
+
+}
@@ -0,0 +1,33 @@
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Heurística de escolha do host de uma VM, usada pelo
+ * {@link BaseAllocationPolicy}.
+ */
+public interface HostSelector {
+
+    /**
+     * Binds the selector to a policy. Called once, before any selection.
+     *
+     * @param policy the policy that owns the selector
+     */
+    void init(BaseAllocationPolicy policy);
+
+    /**
+     * Chooses the host for a VM.
+     *
+     * @param vm the vm
+     * @return the chosen host; $null if no host can receive the VM
+     */
+    PowerHost select(Vm vm);
+
+    /**
+     * Notifies that the free capacity of a host has changed.
+     *
+     * @param slot the host slot
+     */
+    void hostUpdated(int slot);
+
+}
@@ -0,0 +1,308 @@
+
+/**
+ * Topologia do datacenter: pods com racks e racks com hosts. Os hosts são
+ * distribuídos na ordem dos slots da {@link AllocationTable}, os primeiros
+ * no primeiro rack do primeiro pod; o último rack e o último pod podem ficar
+ * incompletos.
+ *
+ * Para cada rack e cada pod são mantidos a maior Ram livre e o maior número de
+ * núcleos livres entre os seus hosts, os Mips livres somados e quantos hosts
+ * têm alguma VM. Um rack cujo maior valor não comporta a VM pode ser
+ * descartado inteiro, e um rack sem hosts ativos pode ser desligado. A
+ * atualização de um host refaz o agregado do seu rack e do seu pod, ao custo
+ * de um rack e de um pod.
+ */
+public class HostTopology {
+
+    /**
+     * Hosts por rack quando nenhum valor é informado.
+     */
+    public static final int DEFAULT_HOSTS_PER_RACK = 40;
+
+    /**
+     * Racks por pod quando nenhum valor é informado.
+     */
+    public static final int DEFAULT_RACKS_PER_POD = 16;
+
+    private final AllocationTable table;
+
+    private final int hostsPerRack;
+
+    private final int racksPerPod;
+
+    private final int racks;
+
+    private final int pods;
+
+    private final int[] rackMaxRam;
+
+    private final int[] rackMaxPes;
+
+    private final double[] rackFreeMips;
+
+    private final int[] rackActiveHosts;
+
+    private final int[] podMaxRam;
+
+    private final int[] podMaxPes;
+
+    private final int[] podActiveRacks;
+
+    private int activeRacks;
+
+    /**
+     * Creates the topology of the hosts of a table and computes the
+     * aggregates of every rack and pod.
+     *
+     * @param table the allocation table
+     * @param hostsPerRack the number of hosts in a rack
+     * @param racksPerPod the number of racks in a pod
+     */
+    public HostTopology(AllocationTable table, int hostsPerRack, int racksPerPod) {
+        if (hostsPerRack < 1 || racksPerPod < 1) {
+            throw new IllegalArgumentException("hostsPerRack and racksPerPod must be positive, got "
+                    + hostsPerRack + " and " + racksPerPod);
+        }
+        this.table = table;
+        this.hostsPerRack = hostsPerRack;
+        this.racksPerPod = racksPerPod;
+        this.racks = (table.getHostCount() + hostsPerRack - 1) / hostsPerRack;
+        this.pods = (racks + racksPerPod - 1) / racksPerPod;
+        this.rackMaxRam = new int[racks];
+        this.rackMaxPes = new int[racks];
+        this.rackFreeMips = new double[racks];
+        this.rackActiveHosts = new int[racks];
+        this.podMaxRam = new int[pods];
+        this.podMaxPes = new int[pods];
+        this.podActiveRacks = new int[pods];
+        for (int rack = 0; rack < racks; rack++) {
+            updateRack(rack);
+        }
+        for (int pod = 0; pod < pods; pod++) {
+            updatePod(pod);
+        }
+    }
+
+    /**
+     * Updates the aggregates of the rack and the pod of a host whose free
+     * capacity changed.
+     *
+     * @param slot the host slot
+     */
+    public void hostUpdated(int slot) {
+        int rack = getRackOf(slot);
+        updateRack(rack);
+        updatePod(getPodOf(rack));
+    }
+
+    private void updateRack(int rack) {
+        boolean wasActive = rackActiveHosts[rack] > 0;
+        int maxRam = Integer.MIN_VALUE;
+        int maxPes = Integer.MIN_VALUE;
+        double freeMips = 0;
+        int activeHosts = 0;
+        for (int slot = getFirstHost(rack); slot < getHostEnd(rack); slot++) {
+            maxRam = Math.max(maxRam, table.getFreeRam(slot));
+            maxPes = Math.max(maxPes, table.getFreePes(slot));
+            freeMips += table.getFreeMips(slot);
+            if (table.getVmCount(slot) > 0) {
+                activeHosts++;
+            }
+        }
+        rackMaxRam[rack] = maxRam;
+        rackMaxPes[rack] = maxPes;
+        rackFreeMips[rack] = freeMips;
+        rackActiveHosts[rack] = activeHosts;
+        if (wasActive != activeHosts > 0) {
+            activeRacks += activeHosts > 0 ? 1 : -1;
+        }
+    }
+
+    private void updatePod(int pod) {
+        int maxRam = Integer.MIN_VALUE;
+        int maxPes = Integer.MIN_VALUE;
+        int active = 0;
+        for (int rack = getFirstRack(pod); rack < getRackEnd(pod); rack++) {
+            maxRam = Math.max(maxRam, rackMaxRam[rack]);
+            maxPes = Math.max(maxPes, rackMaxPes[rack]);
+            if (rackActiveHosts[rack] > 0) {
+                active++;
+            }
+        }
+        podMaxRam[pod] = maxRam;
+        podMaxPes[pod] = maxPes;
+        podActiveRacks[pod] = active;
+    }
+
+    public int getHostsPerRack() {
+        return hostsPerRack;
+    }
+
+    public int getRacksPerPod() {
+        return racksPerPod;
+    }
+
+    public int getRackCount() {
+        return racks;
+    }
+
+    public int getPodCount() {
+        return pods;
+    }
+
+    /**
+     * Gets the rack of a host.
+     *
+     * @param slot the host slot
+     * @return the rack
+     */
+    public int getRackOf(int slot) {
+        return slot / hostsPerRack;
+    }
+
+    /**
+     * Gets the pod of a rack.
+     *
+     * @param rack the rack
+     * @return the pod
+     */
+    public int getPodOf(int rack) {
+        return rack / racksPerPod;
+    }
+
+    /**
+     * Gets the slot of the first host of a rack.
+     *
+     * @param rack the rack
+     * @return the first slot
+     */
+    public int getFirstHost(int rack) {
+        return rack * hostsPerRack;
+    }
+
+    /**
+     * Gets the slot after the last host of a rack.
+     *
+     * @param rack the rack
+     * @return the end slot, exclusive
+     */
+    public int getHostEnd(int rack) {
+        return Math.min((rack + 1) * hostsPerRack, table.getHostCount());
+    }
+
+    /**
+     * Gets the first rack of a pod.
+     *
+     * @param pod the pod
+     * @return the first rack
+     */
+    public int getFirstRack(int pod) {
+        return pod * racksPerPod;
+    }
+
+    /**
+     * Gets the rack after the last rack of a pod.
+     *
+     * @param pod the pod
+     * @return the end rack, exclusive
+     */
+    public int getRackEnd(int pod) {
+        return Math.min((pod + 1) * racksPerPod, racks);
+    }
+
+    /**
+     * Checks whether some host of a rack has at least the given free ram and
+     * pes. Both are necessary for a VM to pass the filter of the policies.
+     *
+     * @param rack the rack
+     * @param ram the requested ram
+     * @param pes the minimum free pes
+     * @return $false if no host of the rack can receive the VM
+     */
+    public boolean mayFit(int rack, int ram, int pes) {
+        return rackMaxRam[rack] >= ram && rackMaxPes[rack] >= pes;
+    }
+
+    /**
+     * Checks whether some host of a pod has at least the given free ram and
+     * pes.
+     *
+     * @param pod the pod
+     * @param ram the requested ram
+     * @param pes the minimum free pes
+     * @return $false if no host of the pod can receive the VM
+     */
+    public boolean podMayFit(int pod, int ram, int pes) {
+        return podMaxRam[pod] >= ram && podMaxPes[pod] >= pes;
+    }
+
+    /**
+     * Gets the largest free ram of the hosts of a rack.
+     *
+     * @param rack the rack
+     * @return the free ram
+     */
+    public int getMaxFreeRam(int rack) {
+        return rackMaxRam[rack];
+    }
+
+    /**
+     * Gets the largest number of free pes of the hosts of a rack.
+     *
+     * @param rack the rack
+     * @return the free pes
+     */
+    public int getMaxFreePes(int rack) {
+        return rackMaxPes[rack];
+    }
+
+    /**
+     * Gets the free mips of all the hosts of a rack.
+     *
+     * @param rack the rack
+     * @return the free mips
+     */
+    public double getFreeMips(int rack) {
+        return rackFreeMips[rack];
+    }
+
+    /**
+     * Gets the number of hosts of a rack with at least one VM.
+     *
+     * @param rack the rack
+     * @return the active hosts
+     */
+    public int getActiveHosts(int rack) {
+        return rackActiveHosts[rack];
+    }
+
+    /**
+     * Checks whether a rack has no VMs, so it may be powered down.
+     *
+     * @param rack the rack
+     * @return $true if no host of the rack has a VM
+     */
+    public boolean isIdle(int rack) {
+        return rackActiveHosts[rack] == 0;
+    }
+
+    /**
+     * Gets the number of racks of a pod with at least one VM.
+     *
+     * @param pod the pod
+     * @return the active racks
+     */
+    public int getActiveRacks(int pod) {
+        return podActiveRacks[pod];
+    }
+
+    /**
+     * Gets the number of racks with at least one VM.
+     *
+     * @return the active racks
+     */
+    public int getActiveRacks() {
+        return activeRacks;
+    }
+
+}
@@ -0,0 +1,213 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Heurística de Lago et al. para a escolha do host: o host mais eficiente
+ * (Mips por Watt no pico) que comporta a VM e, em caso de empate, o que gasta
+ * menos energia após a alocação, o mais utilizado e o de maior capacidade.
+ *
+ * A eficiência de um host não muda durante a simulação, então os hosts são
+ * agrupados em faixas de mesma eficiência uma única vez, da mais para a menos
+ * eficiente, e a busca para na primeira faixa com algum host candidato.
+ * Dentro de uma faixa, os hosts iguais (mesma capacidade e mesmo modelo de
+ * energia) formam um grupo com um {@link HostCapacityIndex} pelos Mips
+ * livres da tabela de alocação, atualizado em {@link #hostUpdated(int)}. Como
+ * a energia após a alocação só cresce com a utilização, o melhor host de um
+ * grupo é o primeiro adequado do índice, do mais para o menos livre, e só os
+ * vencedores dos grupos da faixa passam pelo desempate completo, em vez de
+ * todos os hosts da faixa.
+ *
+ * A ordem do índice é a do desempate enquanto a utilização de cada host é a
+ * soma dos Mips das suas VMs, como na criação das VMs; com as VMs já rodando
+ * abaixo da capacidade, ela passa a ser uma aproximação.
+ */
+public class LagoHostSelector implements HostSelector {
+
+    private BaseAllocationPolicy policy;
+
+    /**
+     * Grupos de cada faixa de eficiência, da mais para a menos eficiente.
+     */
+    private Group[][] tiers;
+
+    /**
+     * Grupo e posição no grupo de cada slot.
+     */
+    private Group[] groupOf;
+
+    private int[] positionOf;
+
+    /**
+     * Hosts iguais de uma faixa, em ordem de slot, indexados pelos Mips
+     * livres.
+     */
+    private static final class Group {
+
+        final int[] slots;
+
+        final HostCapacityIndex index;
+
+        Group(int[] slots, int[] freeMips) {
+            this.slots = slots;
+            this.index = new HostCapacityIndex(freeMips);
+        }
+    }
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        AllocationTable table = policy.getAllocationTable();
+        int count = table.getHostCount();
+        final double[] efficiency = new double[count];
+        final String[] kind = new String[count];
+        Integer[] order = new Integer[count];
+        for (int slot = 0; slot < count; slot++) {
+            PowerHost host = table.getHostAt(slot);
+            efficiency[slot] = host.getTotalMips() / host.getMaxPower();
+            kind[slot] = host.getTotalMips() + " " + host.getPowerModel().getClass().getName()
+                    + " " + host.getMaxPower();
+            order[slot] = slot;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer s1, Integer s2) {
+                int byEfficiency = Double.compare(efficiency[s2], efficiency[s1]);
+                if (byEfficiency != 0) {
+                    return byEfficiency;
+                }
+                int byKind = kind[s1].compareTo(kind[s2]);
+                return byKind != 0 ? byKind : s1 - s2;
+            }
+        });
+
+        groupOf = new Group[count];
+        positionOf = new int[count];
+        List<Group[]> tierList = new ArrayList<Group[]>();
+        List<Group> groups = new ArrayList<Group>();
+        int start = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || !kind[order[i]].equals(kind[order[start]])
+                    || efficiency[order[i]] != efficiency[order[start]]) {
+                int[] slots = new int[i - start];
+                for (int j = start; j < i; j++) {
+                    slots[j - start] = order[j];
+                }
+                Group group = new Group(slots, freeMipsOf(table, slots));
+                for (int position = 0; position < slots.length; position++) {
+                    groupOf[slots[position]] = group;
+                    positionOf[slots[position]] = position;
+                }
+                groups.add(group);
+                if (i == count || efficiency[order[i]] != efficiency[order[start]]) {
+                    tierList.add(groups.toArray(new Group[groups.size()]));
+                    groups.clear();
+                }
+                start = i;
+            }
+        }
+        this.tiers = tierList.toArray(new Group[tierList.size()][]);
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        UtilizationCache utilization = policy.getUtilizationCache();
+        double requestedMips = vm.getMips() * vm.getNumberOfPes();
+        double requestedTotalMips = vm.getCurrentRequestedTotalMips();
+        int min = (int) Math.floor(requestedMips) + 1;
+        BitSet candidates = policy.getCandidateHosts(vm);
+        for (Group[] tier : tiers) {
+            int best = -1;
+            double bestUtilizationMips = 0;
+            for (Group group : tier) {
+                int slot = first(group, min, requestedMips, candidates, vm);
+                if (slot < 0) {
+                    continue;
+                }
+                PowerHost host = table.getHostAt(slot);
+                double utilizationMips = utilization.getUtilizationOfCpuMips(slot);
+                if (best < 0 || isBetter(host, utilizationMips, table.<PowerHost>getHostAt(best),
+                        bestUtilizationMips, requestedTotalMips)) {
+                    best = slot;
+                    bestUtilizationMips = utilizationMips;
+                }
+            }
+            if (best >= 0) {
+                return table.getHostAt(best);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the first host of a group, from the most to the least free mips,
+     * that can receive the VM.
+     *
+     * @return the slot; -1 if no host of the group can receive the VM
+     */
+    private int first(Group group, int min, double requestedMips, BitSet candidates, Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        int position = group.index.descendingFirst(min);
+        while (position >= 0) {
+            int slot = group.slots[position];
+            if (requestedMips < table.getFreeMips(slot)
+                    && (candidates == null || candidates.get(slot))
+                    && policy.isSuitableForVm(slot, vm)) {
+                return slot;
+            }
+            position = group.index.descendingNext(position, min);
+        }
+        return -1;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        groupOf[slot].index.set(positionOf[slot], freeMipsOf(policy.getAllocationTable(), slot));
+    }
+
+    /**
+     * Key of a host in the index: its free mips, rounded up, so a host with
+     * more free mips than the VM asks for is never below the minimum key.
+     */
+    private static int freeMipsOf(AllocationTable table, int slot) {
+        return (int) Math.ceil(table.getFreeMips(slot));
+    }
+
+    private static int[] freeMipsOf(AllocationTable table, int[] slots) {
+        int[] freeMips = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            freeMips[i] = freeMipsOf(table, slots[i]);
+        }
+        return freeMips;
+    }
+
+    /**
+     * Desempate entre dois hosts da mesma faixa de eficiência.
+     */
+    private static boolean isBetter(PowerHost host, double utilizationMips, PowerHost bestHost,
+            double bestUtilizationMips, double requestedMips) {
+        double pw_vm_at_host = bestHost.getPower()
+                + getPowerAfterAllocation(host, utilizationMips, requestedMips);
+        double pw_vm_at_bestHost = host.getPower()
+                + getPowerAfterAllocation(bestHost, bestUtilizationMips, requestedMips);
+        if (pw_vm_at_host != pw_vm_at_bestHost) {
+            return pw_vm_at_host < pw_vm_at_bestHost;
+        }
+        if (host.getUtilizationOfCpu() != bestHost.getUtilizationOfCpu()) {
+            return host.getUtilizationOfCpu() > bestHost.getUtilizationOfCpu();
+        }
+        return host.getTotalMips() > bestHost.getTotalMips();
+    }
+
+    private static double getPowerAfterAllocation(PowerHost host, double utilizationMips, double requestedMips) {
+        double utilization = (utilizationMips + requestedMips) / host.getTotalMips();
+        return host.getPowerModel().getPower(Math.min(1, utilization));
+    }
+
+}
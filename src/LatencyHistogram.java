@@ -0,0 +1,92 @@
+
+import java.util.Arrays;
+
+/**
+ * Histograma de latências em faixas de potências de 2 nanossegundos.
+ *
+ * Registrar um valor custa um {@link Long#numberOfLeadingZeros(long)} e um
+ * incremento, sem alocar objetos. Os percentis são aproximados pelo limite
+ * superior da faixa, com erro de no máximo 2 vezes.
+ */
+public class LatencyHistogram {
+
+    private final long[] buckets = new long[64];
+
+    private long count;
+
+    private long total;
+
+    private long max;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+        count++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean latency.
+     *
+     * @return the mean, in nanoseconds; 0 if empty
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets the highest latency recorded.
+     *
+     * @return the max, in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the latencies.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the upper bound of the bucket holding the percentile, in
+     * nanoseconds, never above the max; 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return i >= 62 ? max : Math.min(max, (2L << i) - 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus",
+                count, getMean() / 1000, getPercentile(50) / 1000.0, getPercentile(99) / 1000.0, max / 1000.0);
+    }
+
+}
@@ -0,0 +1,287 @@
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.cloudbus.cloudsim.Log;
+
+/**
+ * Benchmark da simulação completa do {@code Main}, uma política por vez, com
+ * comparação contra uma linha de base.
+ *
+ * Cada política roda em uma JVM própria, com semente fixa, todo o caminho do
+ * {@link Main#runScenario}: criação dos hosts, VMs e cloudlets, a simulação e
+ * o {@code Helper.printResults}. São medidos o tempo real, os eventos
+ * processados pelo datacenter por segundo, o pico de heap e o tempo gasto em
+ * GC. Os valores são comparados com os guardados no arquivo da linha de base
+ * e o programa termina com código 1 quando alguma política piora mais do que
+ * o limite tolerado, o que faz o alvo {@code bench-macro} do Ant falhar. A
+ * linha de base de referência fica versionada em
+ * {@code bench/baseline.properties}; sem ela, ou sem os valores de alguma
+ * política, o benchmark também falha. Só com {@code update} os valores
+ * medidos são gravados na linha de base, substituindo os das políticas
+ * medidas e mantendo os das demais.
+ *
+ * Uso: {@code MacroBenchmark [policies=FirstFit,Lago] [hosts=2000] [vms=2500]
+ * [seed=1] [baseline=bench/baseline.properties] [threshold=0.2] [update]}.
+ */
+public class MacroBenchmark {
+
+    /**
+     * Prefixo da linha com as medidas na saída de uma execução.
+     */
+    private static final String PREFIX = "BENCH";
+
+    /**
+     * Diferenças de tempo abaixo deste valor são consideradas ruído.
+     */
+    private static final long MIN_TIME_DELTA_MILLIS = 100;
+
+    private static final String[] METRICS = {"wallTimeMs", "eventsPerSecond", "peakHeapMb", "gcTimeMs"};
+
+    private List<String> policies = AllocationPolicies.NAMES;
+
+    private int hosts;
+
+    private int vms;
+
+    private long seed;
+
+    private String baseline = "bench/baseline.properties";
+
+    private double threshold = 0.2;
+
+    private boolean update;
+
+    public MacroBenchmark() {
+        ScenarioConfig defaults = ScenarioConfig.getDefault();
+        hosts = defaults.getHosts().get(0);
+        vms = defaults.getVms().get(0);
+        seed = defaults.getSeeds().get(0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("run")) {
+            String[] scenarioArgs = {args[1], args[2], args[3], args[4]};
+            runAndPrint(Scenario.fromArgs(scenarioArgs), args[5]);
+            return;
+        }
+        MacroBenchmark benchmark = new MacroBenchmark();
+        for (String arg : args) {
+            benchmark.configure(arg);
+        }
+        System.exit(benchmark.run() ? 0 : 1);
+    }
+
+    private void configure(String option) {
+        if (option.equals("update")) {
+            update = true;
+            return;
+        }
+        int eq = option.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Expected key=value or update, got " + option);
+        }
+        String key = option.substring(0, eq);
+        String value = option.substring(eq + 1);
+        switch (key) {
+            case "policies":
+                policies = new ArrayList<String>();
+                for (String policy : value.split(",")) {
+                    if (!AllocationPolicies.NAMES.contains(policy)) {
+                        throw new IllegalArgumentException("Unknown allocation policy " + policy + "; expected one of "
+                                + AllocationPolicies.NAMES);
+                    }
+                    policies.add(policy);
+                }
+                break;
+            case "hosts":
+                hosts = Integer.parseInt(value);
+                break;
+            case "vms":
+                vms = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "baseline":
+                baseline = value;
+                break;
+            case "threshold":
+                threshold = Double.parseDouble(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + key);
+        }
+    }
+
+    /**
+     * Runs every policy and compares the measures with the baseline, or
+     * records them as the new baseline with {@code update}.
+     *
+     * @return $true if no policy regressed; $false also when the baseline
+     * file or the values of a policy are missing
+     * @throws Exception if a run fails
+     */
+    public boolean run() throws Exception {
+        Properties base = new Properties();
+        File baselineFile = new File(baseline);
+        if (!update && !baselineFile.exists()) {
+            Log.printLine("No baseline at " + baselineFile.getPath() + "; run with update to record one");
+            return false;
+        }
+        if (baselineFile.exists()) {
+            InputStream in = new FileInputStream(baselineFile);
+            try {
+                base.load(in);
+            } finally {
+                in.close();
+            }
+        }
+
+        Properties measured = new Properties();
+        boolean passed = true;
+        Log.printLine("Policy\tWall time (ms)\tEvents/s\tPeak heap (MB)\tGC time (ms)");
+        for (String policy : policies) {
+            double[] values = runInChildProcess(new Scenario(policy, hosts, vms, seed));
+            Log.printLine(String.format("%s\t%.0f\t%.0f\t%.1f\t%.0f", policy, values[0], values[1], values[2], values[3]));
+            for (int i = 0; i < METRICS.length; i++) {
+                String key = policy + "." + METRICS[i];
+                measured.setProperty(key, String.valueOf(values[i]));
+                if (update) {
+                    continue;
+                }
+                if (!base.containsKey(key)) {
+                    Log.printLine("  MISSING baseline of " + key + "; run with update to record it");
+                    passed = false;
+                } else {
+                    double expected = Double.parseDouble(base.getProperty(key));
+                    if (isRegression(METRICS[i], expected, values[i])) {
+                        Log.printLine(String.format("  REGRESSION %s: %.1f, baseline %.1f (threshold %.0f%%)",
+                                METRICS[i], values[i], expected, threshold * 100));
+                        passed = false;
+                    }
+                }
+            }
+        }
+
+        if (update) {
+            File parent = baselineFile.getAbsoluteFile().getParentFile();
+            parent.mkdirs();
+            OutputStream out = new FileOutputStream(baselineFile);
+            try {
+                base.putAll(measured);
+                base.store(out, "Baseline of MacroBenchmark: hosts=" + hosts + " vms=" + vms + " seed=" + seed);
+            } finally {
+                out.close();
+            }
+            Log.printLine("Baseline written to " + baselineFile.getPath());
+        }
+        return passed;
+    }
+
+    private boolean isRegression(String metric, double expected, double value) {
+        if (metric.equals("eventsPerSecond")) {
+            return value < expected * (1 - threshold);
+        }
+        if (metric.endsWith("Ms") && value - expected < MIN_TIME_DELTA_MILLIS) {
+            return false;
+        }
+        return value > expected * (1 + threshold);
+    }
+
+    private double[] runInChildProcess(Scenario scenario) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (System.getProperty(ScenarioConfig.PROPERTY) != null) {
+            command.add("-D" + ScenarioConfig.PROPERTY + "=" + System.getProperty(ScenarioConfig.PROPERTY));
+        }
+        command.add(MacroBenchmark.class.getName());
+        command.add("run");
+        for (String arg : scenario.toArgs()) {
+            command.add(arg);
+        }
+        command.add(new File(new File(baseline).getAbsoluteFile().getParentFile(), "output").getPath());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        double[] values = null;
+        String lastLine = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PREFIX + "\t")) {
+                    String[] fields = line.split("\t");
+                    values = new double[METRICS.length];
+                    for (int i = 0; i < METRICS.length; i++) {
+                        values[i] = Double.parseDouble(fields[i + 1]);
+                    }
+                } else if (!line.isEmpty()) {
+                    lastLine = line;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || values == null) {
+            throw new IOException(scenario + ": exit code " + exitCode
+                    + (lastLine == null ? "" : ", last output: " + lastLine));
+        }
+        return values;
+    }
+
+    /**
+     * Runs a scenario in this JVM and prints its measures in one line.
+     */
+    private static void runAndPrint(Scenario scenario, String outputFolder) throws Exception {
+        Log.setDisabled(true);
+        List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcStart = getGcTimeMillis();
+        long start = System.nanoTime();
+
+        ScenarioResult result = Main.runScenario(
+                scenario, scenario.getName(), outputFolder, true,
+                scenario.getConfig().isEventDriven() ? EventDrivenPowerDatacenter.class : CountingPowerDatacenter.class);
+
+        double wallTimeMillis = (System.nanoTime() - start) / 1e6;
+        long events = ((CountingPowerDatacenter) result.getDatacenter()).getProcessedEvents();
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        System.out.println(PREFIX
+                + "\t" + wallTimeMillis
+                + "\t" + events / (wallTimeMillis / 1000)
+                + "\t" + peakHeap / (1024.0 * 1024.0)
+                + "\t" + (getGcTimeMillis() - gcStart));
+    }
+
+    private static long getGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+}
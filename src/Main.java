@@ -1,6 +1,6 @@
 
+import java.io.File;
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.LinkedList;
@@ -30,13 +30,8 @@ import org.cloudbus.cloudsim.power.PowerDatacenter;
 import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
 import org.cloudbus.cloudsim.power.PowerDatacenterNonPowerAware;
 import org.cloudbus.cloudsim.power.PowerHost;
-import org.cloudbus.cloudsim.power.PowerHostUtilizationHistory;
 import org.cloudbus.cloudsim.power.PowerVm;
 import org.cloudbus.cloudsim.power.PowerVmAllocationPolicySimple;
-import org.cloudbus.cloudsim.power.models.PowerModel;
-import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G4Xeon3040;
-import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
-import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerIbmX3250XeonX3470;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
@@ -68,14 +63,19 @@ public class Main {
      * @param args the args
      * @throws IOException
      */
-    //Alguma definicições da simulação como o intervalo, o limite da execução e se a saída em log está habilitad
-    public final static double SCHEDULING_INTERVAL = 300;
-    public final static double SIMULATION_LIMIT = 24 * 60 * 60;
+    //Se a saída em log está habilitada; o intervalo, o limite da execução, os hosts, as VMs e os cloudlets vêm do ScenarioConfig
     public final static boolean ENABLE_OUTPUT = true;
+    //Instrumentação das políticas (JMX e resumo no fim da simulação), ligada com -Dmetrics=true
+    public final static boolean ENABLE_METRICS = Boolean.getBoolean("metrics");
+    //Verificação da contabilidade das políticas a cada alocação, além da chave check.consistency do cenário (-DcheckConsistency=true)
+    public final static boolean CHECK_CONSISTENCY = Boolean.getBoolean("checkConsistency");
+    //Nível do registro de eventos das políticas quando a saída está habilitada: OFF, WARN, INFO ou DEBUG (-DpolicyLog=DEBUG)
+    public final static PolicyEventLog.Level POLICY_LOG_LEVEL = PolicyEventLog.Level.valueOf(
+            System.getProperty("policyLog", "INFO"));
+    //Formato dos resultados por cloudlet, VM e host na pasta de saída: csv, columnar ou none (-Dresults=columnar)
+    public final static String RESULTS_FORMAT = System.getProperty("results", "csv");
     
     //Configurações de Datacenter
-    public final static int NUMBER_OF_HOSTS = 2000;
-    public final static int NUMBER_0F_VMS = 2500;
     public final static String arch = "x86"; // system architecture
     public final static String os = "Linux"; // operating system
     public final static String vmm = "Xen";
@@ -85,57 +85,28 @@ public class Main {
     public final static double costPerStorage = 0.001; // the cost of using storage in this resource
     public final static double costPerBw = 0.0; // the cost of using bw in this resource
 
-    //definição da configuração das VMs utilizadas na simulação.
-    public final static int VM_TYPES = 3;
-    //public final static int[] VM_MIPS = {1000};
-    //public final static int[] VM_PES = {2};
-    //public final static int[] VM_RAM = {2048};
-    public final static int[] VM_MIPS = {600,300,200};
-    public final static int[] VM_PES = {4,2,1};
-    public final static int[] VM_RAM = {4096,2048,2048};
-    public final static int VM_BW = 100000; // 100 Mbit/s
-    public final static int VM_SIZE = 2500; // 2.5 GB
-
-    //Definição da configuração dos hosts utilizados na simulação.
-    public final static int HOST_TYPES = 2;
-    //public final static int[] HOST_MIPS = {2000};
-    //public final static int[] HOST_PES = {4};
-    //public final static int[] HOST_RAM = {16384};
-    public final static int[] HOST_MIPS = {2000,1000};
-    public final static int[] HOST_PES = {4,2};
-    public final static int[] HOST_RAM = {16384,16384};
-    public final static int HOST_BW = 1000000; // 1 Gbit/s
-    public final static int HOST_STORAGE = 1000000; // 1 TB
-
-    public final static PowerModel[] HOST_POWER = {
-        new PowerModelSpecPowerHpProLiantMl110G4Xeon3040(),
-        new PowerModelSpecPowerHpProLiantMl110G4Xeon3040()
-    };
-
-    //Definição da configuração dos cloudlets utilizados na simulação.
-    public final static int CLOUDLET_LENGTH = 2500 * (int) SIMULATION_LIMIT;
-    public final static int CLOUDLET_PES = 1;
-    public final static long CLOUDLET_UTILIZATION_SEED = 1;
-    public final static long fileSize = 300;
-    public final static long outputSize = 300;
-
     //Função responsável pela criação da lista de VMs
     public static List<Vm> createVmList(int brokerId, int vmsNumber) {
+        return createVmList(ScenarioConfig.getCurrent(), brokerId, vmsNumber);
+    }
+
+    //Mesma lista, com os tipos de VM de uma configuração de cenário
+    public static List<Vm> createVmList(ScenarioConfig config, int brokerId, int vmsNumber) {
         List<Vm> vms = new ArrayList<Vm>();
         for (int i = 0; i < vmsNumber; i++) {
-            int vmType = i % VM_TYPES;
+            int vmType = i % config.getVmTypes();
             vms.add(new PowerVm(
                     i,
                     brokerId,
-                    VM_MIPS[vmType],
-                    VM_PES[vmType],
-                    VM_RAM[vmType],
-                    VM_BW,
-                    VM_SIZE,
+                    config.getVmMips(vmType),
+                    config.getVmPes(vmType),
+                    config.getVmRam(vmType),
+                    config.getVmBw(vmType),
+                    config.getVmSize(vmType),
                     1,
                     "Xen",
-                    new CloudletSchedulerDynamicWorkload(VM_MIPS[vmType], VM_PES[vmType]),
-                    SCHEDULING_INTERVAL));
+                    new CloudletSchedulerDynamicWorkload(config.getVmMips(vmType), config.getVmPes(vmType)),
+                    config.getSchedulingInterval()));
         }
         return vms;
     }
@@ -146,6 +117,17 @@ public class Main {
             Class<? extends Datacenter> datacenterClass,
             List<PowerHost> hostList,
             VmAllocationPolicy vmAllocationPolicy) throws Exception {
+        return createDatacenter(name, datacenterClass, hostList, vmAllocationPolicy,
+                ScenarioConfig.getCurrent().getSchedulingInterval());
+    }
+
+    //Mesmo Datacenter, com o intervalo de escalonamento informado
+    public static Datacenter createDatacenter(
+            String name,
+            Class<? extends Datacenter> datacenterClass,
+            List<PowerHost> hostList,
+            VmAllocationPolicy vmAllocationPolicy,
+            double schedulingInterval) throws Exception {
 
         DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
                 arch,
@@ -170,7 +152,7 @@ public class Main {
                             characteristics,
                             vmAllocationPolicy,
                             new LinkedList<Storage>(),
-                            SCHEDULING_INTERVAL);
+                            schedulingInterval);
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(0);
@@ -191,59 +173,91 @@ public class Main {
         return broker;
     }
 
+    //Broker que grava os cloudlets devolvidos em um ResultSink, sem guardá-los
+    public static StreamingDatacenterBroker createBroker(ResultSink results) {
+        StreamingDatacenterBroker broker = null;
+        try {
+            broker = new StreamingDatacenterBroker("Broker", results);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(0);
+        }
+        return broker;
+    }
+
     //Função responsável pela criação da lista de hosts
     public static List<PowerHost> createHostList(int hostsNumber) {
+        return createHostList(ScenarioConfig.getCurrent(), hostsNumber);
+    }
+
+    //Mesma lista, com os tipos de host de uma configuração de cenário
+    public static List<PowerHost> createHostList(ScenarioConfig config, int hostsNumber) {
         List<PowerHost> hostList = new ArrayList<PowerHost>();
         for (int i = 0; i < hostsNumber; i++) {
-            int hostType = i % HOST_TYPES;
+            int hostType = i % config.getHostTypes();
 
             List<Pe> peList = new ArrayList<Pe>();
-            for (int j = 0; j < HOST_PES[hostType]; j++) {
-                peList.add(new Pe(j, new PeProvisionerSimple(HOST_MIPS[hostType])));
+            for (int j = 0; j < config.getHostPes(hostType); j++) {
+                peList.add(new Pe(j, new PeProvisionerSimple(config.getHostMips(hostType))));
             }
 
-            hostList.add(new PowerHostUtilizationHistory(
+            hostList.add(new UtilizationHistoryHost(
                     i,
-                    new RamProvisionerSimple(HOST_RAM[hostType]),
-                    new BwProvisionerSimple(HOST_BW),
-                    HOST_STORAGE,
+                    new RamProvisionerSimple(config.getHostRam(hostType)),
+                    new BwProvisionerSimple(config.getHostBw(hostType)),
+                    config.getHostStorage(hostType),
                     peList,
                     new VmSchedulerTimeSharedOverSubscription(peList),
-                    HOST_POWER[hostType]));
+                    config.getHostPower(hostType)));
         }
         return hostList;
     }
 
     //Função responsável pela criação da lista de cloudlets utilizados.
     public static List<Cloudlet> createCloudletList(int brokerId, int cloudletsNumber) {
+        return createCloudletList(brokerId, cloudletsNumber, ScenarioConfig.getCurrent().getSeeds().get(0));
+    }
+
+    //Mesma lista, com a semente da utilização dos cloudlets informada; -1 para uma carga não reproduzível.
+    public static List<Cloudlet> createCloudletList(int brokerId, int cloudletsNumber, long seed) {
+        return createCloudletList(ScenarioConfig.getCurrent(), brokerId, cloudletsNumber, seed);
+    }
+
+    //Mesma lista, com a carga de uma configuração de cenário
+    public static List<Cloudlet> createCloudletList(ScenarioConfig config, int brokerId, int cloudletsNumber,
+            long seed) {
         List<Cloudlet> list = new ArrayList<Cloudlet>();
-        long seed = CLOUDLET_UTILIZATION_SEED;
         UtilizationModel utilizationModelNull = new UtilizationModelNull();
         UtilizationModel utilizationModelFull = new UtilizationModelFull();
+        TraceStore traces = null;
+        if (config.getCloudletUtilization().equals("trace")) {
+            try {
+                traces = TraceStore.open(config.getCloudletTraces());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read the traces " + config.getCloudletTraces(), e);
+            }
+        }
 
         for (int i = 0; i < cloudletsNumber; i++) {
-            Cloudlet cloudlet = null;
-            if (seed == -1) {
-                cloudlet = new Cloudlet(
-                        i,
-                        CLOUDLET_LENGTH,
-                        CLOUDLET_PES,
-                        fileSize,
-                        outputSize,
-                        new UtilizationModelStochastic(),
-                        utilizationModelFull,
-                        utilizationModelFull);
+            UtilizationModel utilizationModelCpu = null;
+            if (traces != null) {
+                utilizationModelCpu = new UtilizationModelTrace(traces, i % traces.getTraces());
+            } else if (config.getCloudletUtilization().equals("full")) {
+                utilizationModelCpu = utilizationModelFull;
+            } else if (seed == -1) {
+                utilizationModelCpu = new UtilizationModelStochastic();
             } else {
-                cloudlet = new Cloudlet(
-                        i,
-                        CLOUDLET_LENGTH,
-                        CLOUDLET_PES,
-                        fileSize,
-                        outputSize,
-                        new UtilizationModelStochastic(seed * i),
-                        utilizationModelFull,
-                        utilizationModelFull);
+                utilizationModelCpu = new UtilizationModelStochastic(seed * i);
             }
+            Cloudlet cloudlet = new Cloudlet(
+                    i,
+                    config.getCloudletLength(),
+                    config.getCloudletPes(),
+                    config.getCloudletFileSize(),
+                    config.getCloudletOutputSize(),
+                    utilizationModelCpu,
+                    utilizationModelFull,
+                    utilizationModelFull);
             cloudlet.setUserId(brokerId);
             cloudlet.setVmId(i);
             list.add(cloudlet);
@@ -252,87 +266,222 @@ public class Main {
         return list;
     }
 
-    private static void printCloudletList(List<Cloudlet> list) {
-        int size = list.size();
-        Cloudlet cloudlet;
-
-        String indent = "\t";
-        Log.printLine();
-        Log.printLine("========== OUTPUT ==========");
-        Log.printLine("Cloudlet ID" + indent + "STATUS" + indent
-                + "Resource ID" + indent + "VM ID" + indent + "Time" + indent
-                + "Start Time" + indent + "Finish Time");
-
-        DecimalFormat dft = new DecimalFormat("###.##");
-        for (int i = 0; i < size; i++) {
-            cloudlet = list.get(i);
-            Log.print(indent + cloudlet.getCloudletId());
-
-            if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS) {
-                Log.printLine(indent + "SUCCESS"
-                        + indent + indent + cloudlet.getResourceId()
-                        + indent + cloudlet.getVmId()
-                        + indent + dft.format(cloudlet.getActualCPUTime())
-                        + indent + dft.format(cloudlet.getExecStartTime())
-                        + indent + indent + dft.format(cloudlet.getFinishTime())
-                );
+    /**
+     * Runs the simulation. Without arguments, runs the default scenario and
+     * prints the results to the log; with the arguments of
+     * {@link Scenario#toArgs()} and, optionally, an output folder, runs that
+     * scenario, writes the results of {@link Helper#printResults} as csv and
+     * prints a {@link ScenarioResult} line, as expected by
+     * {@link ExperimentRunner}. The host and VM types, the workload and the
+     * default scenario come from the file of {@code -Dscenario}, see
+     * {@link ScenarioConfig}.
+     *
+     * @param args the args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        boolean defaultScenario = args.length == 0;
+        ScenarioConfig config = null;
+        try {
+            config = ScenarioConfig.getCurrent();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        Scenario scenario = defaultScenario
+                ? new Scenario(config.getPolicies().get(0), config.getHosts().get(0), config.getVms().get(0),
+                        config.getSeeds().get(0), config)
+                : Scenario.fromArgs(args, config);
+        String experimentName = defaultScenario
+                ? "Ambiente de teste para a alocação de máquinas virtuais"
+                : scenario.getName();
+        String outputFolder = args.length > 4 ? args[4] : "output";
+
+        Log.setDisabled(!ENABLE_OUTPUT || !defaultScenario);
+        Log.printLine("Starting " + experimentName);
+
+        try {
+            ScenarioResult result = runScenario(scenario, experimentName, outputFolder, !defaultScenario);
+            if (!defaultScenario) {
+                System.out.println(result.toLine());
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+            System.exit(defaultScenario ? 0 : 1);
         }
+
+        Log.printLine("Finished " + experimentName);
     }
 
-    public static void main(String[] args) throws IOException {
-        String experimentName = "Ambiente de teste para a alocação de máquinas virtuais";
-        String outputFolder = "output";
+    /**
+     * Runs one scenario quietly and writes its results as csv. Entry point of
+     * the isolated mode of {@link ExperimentRunner}, which calls it through
+     * reflection from another class loader, so it only takes and returns
+     * types of the JDK.
+     *
+     * @param args the arguments of {@link Scenario#toArgs()}
+     * @param outputFolder the folder of the csv results
+     * @param scenarioFile the scenario file; $null for the configuration of
+     * this JVM
+     * @return the result, as written by {@link ScenarioResult#toLine()}
+     * @throws Exception if the simulation fails
+     */
+    public static String runIsolated(String[] args, String outputFolder, String scenarioFile) throws Exception {
+        Log.setDisabled(true);
+        ScenarioConfig config = scenarioFile == null
+                ? ScenarioConfig.getCurrent()
+                : ScenarioConfig.load(new File(scenarioFile));
+        Scenario scenario = Scenario.fromArgs(args, config);
+        return runScenario(scenario, scenario.getName(), outputFolder, true).toLine();
+    }
 
-        Log.setDisabled(!ENABLE_OUTPUT);
-        Log.printLine("Starting " + experimentName);
+    /**
+     * Runs one scenario in this JVM. CloudSim keeps the simulation in static
+     * fields, so only one scenario may run at a time per class loader.
+     *
+     * @param scenario the scenario
+     * @param experimentName the name given to {@link Helper#printResults}
+     * @param outputFolder the folder of the csv results
+     * @param outputInCsv $true to write the results of
+     * {@link Helper#printResults} as csv instead of printing them to the log
+     * @return the metrics of the run
+     * @throws Exception if the simulation fails
+     */
+    public static ScenarioResult runScenario(Scenario scenario, String experimentName, String outputFolder,
+            boolean outputInCsv) throws Exception {
+        return runScenario(scenario, experimentName, outputFolder, outputInCsv,
+                scenario.getConfig().isEventDriven() ? EventDrivenPowerDatacenter.class : PowerDatacenter.class);
+    }
 
-        try {
-            CloudSim.init(1, Calendar.getInstance(), false);
+    /**
+     * Runs one scenario in this JVM with the given datacenter class. The
+     * datacenter is returned in {@link ScenarioResult#getDatacenter()}.
+     *
+     * @param scenario the scenario
+     * @param experimentName the name given to {@link Helper#printResults}
+     * @param outputFolder the folder of the csv results
+     * @param outputInCsv $true to write the results as csv
+     * @param datacenterClass the datacenter class
+     * @return the metrics of the run
+     * @throws Exception if the simulation fails
+     */
+    public static ScenarioResult runScenario(Scenario scenario, String experimentName, String outputFolder,
+            boolean outputInCsv, Class<? extends PowerDatacenter> datacenterClass) throws Exception {
+        long start = System.currentTimeMillis();
+        ScenarioConfig config = scenario.getConfig();
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        ResultSink results = ResultSink.create(RESULTS_FORMAT, outputFolder, scenario.getName());
+        StreamingDatacenterBroker broker = createBroker(results);
+        int brokerId = broker.getId();
+
+        List<Cloudlet> cloudletList = createCloudletList(
+                config,
+                brokerId,
+                scenario.getVms(),
+                scenario.getSeed());
+        List<Vm> vmList = createVmList(config, brokerId, cloudletList.size());
+        List<PowerHost> hostList = createHostList(config, scenario.getHosts());
+        BaseAllocationPolicy vmAllocationPolicy = AllocationPolicies.create(
+                scenario.getPolicy(),
+                hostList,
+                scenario.getSeed(),
+                config);
+        vmAllocationPolicy.setCheckConsistency(config.isCheckConsistency() || CHECK_CONSISTENCY);
+        VmConsolidation consolidation = vmAllocationPolicy.getConsolidation();
+        consolidation.setUpperThreshold(config.getConsolidationUpperThreshold());
+        consolidation.setLowerThreshold(config.getConsolidationLowerThreshold());
+        consolidation.setSafetyParameter(config.getConsolidationSafety());
+        consolidation.setMaxHostsPerRound(config.getConsolidationHostsPerRound());
+        PowerDatacenter datacenter = (PowerDatacenter) createDatacenter(
+                "Datacenter",
+                datacenterClass,
+                hostList,
+                vmAllocationPolicy,
+                config.getSchedulingInterval());
+        datacenter.setDisableMigrations(!config.isConsolidation());
+        if (datacenter instanceof EventDrivenPowerDatacenter) {
+            EventDrivenPowerDatacenter eventDriven = (EventDrivenPowerDatacenter) datacenter;
+            eventDriven.setEndTime(config.getSimulationLimit());
+            eventDriven.setSteadyUtilization(config.getCloudletUtilization().equals("full"));
+        }
 
-            DatacenterBroker broker = createBroker();
-            int brokerId = broker.getId();
+        PolicyEventLog eventLog = PolicyEventLog.OFF;
+        if (!Log.isDisabled()) {
+            eventLog = new PolicyEventLog(POLICY_LOG_LEVEL, Log.getOutput());
+            vmAllocationPolicy.setEventLog(eventLog);
+        }
 
-            List<Cloudlet> cloudletList = createCloudletList(
-                    brokerId,
-                    NUMBER_0F_VMS);
-            List<Vm> vmList = createVmList(brokerId, cloudletList.size());
-            List<PowerHost> hostList = createHostList(NUMBER_OF_HOSTS);
-            PowerDatacenter datacenter = (PowerDatacenter) createDatacenter(
-                    "Datacenter",
-                    PowerDatacenter.class,
-                    hostList,
-                    new WorstFitCpuAllocationPolicy(hostList));
-            datacenter.setDisableMigrations(true);
+        PolicyMetrics metrics = null;
+        if (ENABLE_METRICS) {
+            metrics = new PolicyMetrics();
+            metrics.register(experimentName);
+            vmAllocationPolicy.setMetrics(metrics);
+        }
 
-            broker.submitVmList(vmList);
-            broker.submitCloudletList(cloudletList);
+        if (config.isBatchPlacement()) {
+            vmAllocationPolicy.placeAll(vmList);
+        }
 
-            CloudSim.terminateSimulation(SIMULATION_LIMIT);
-            double lastClock = CloudSim.startSimulation();
+        broker.submitVmList(vmList);
+        broker.submitCloudletList(cloudletList);
 
-            List<Cloudlet> newList = broker.getCloudletReceivedList();
-            Log.printLine("Received " + newList.size() + " cloudlets");
+        CloudSim.terminateSimulation(config.getSimulationLimit());
+        double lastClock = CloudSim.startSimulation();
 
-            CloudSim.stopSimulation();
+        Log.printLine("Received " + broker.getCloudletsReceived() + " cloudlets");
+        if (datacenter instanceof EventDrivenPowerDatacenter) {
+            EventDrivenPowerDatacenter eventDriven = (EventDrivenPowerDatacenter) datacenter;
+            Log.printLine("Updated " + eventDriven.getHostUpdates() + " hosts, skipped "
+                    + eventDriven.getSkippedHostUpdates() + " unchanged ones");
+        }
 
-            Helper.printResults(
-                    datacenter,
-                    vmList,
-                    lastClock,
-                    experimentName,
-                    false,
-                    outputFolder);
+        CloudSim.stopSimulation();
+        eventLog.close();
+        if (eventLog.getDroppedEvents() > 0) {
+            Log.printLine("Policy event log dropped " + eventLog.getDroppedEvents() + " events with a full queue");
+        }
+        if (eventLog.getFailure() != null) {
+            Log.printLine("Policy event log stopped writing: " + eventLog.getFailure().getMessage());
+        }
 
-            printCloudletList(newList);
+        results.writeVms(vmList);
+        results.writeHosts(hostList);
+        results.close();
+        if (results != ResultSink.NONE) {
+            Log.printLine("Results of " + scenario.getName() + " written to " + outputFolder
+                    + " (" + RESULTS_FORMAT + ")");
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.printLine("The simulation has been terminated due to an unexpected error");
-            System.exit(0);
+        if (metrics != null) {
+            boolean disabled = Log.isDisabled();
+            Log.setDisabled(false);
+            Log.printLine("Allocation policy metrics of " + experimentName + ":");
+            Log.printLine(metrics.getSummary());
+            Log.setDisabled(disabled);
+            metrics.unregister();
         }
 
-        Log.printLine("Finished " + experimentName);
+        Helper.printResults(
+                datacenter,
+                vmList,
+                lastClock,
+                experimentName,
+                outputInCsv,
+                outputFolder);
+
+        ScenarioResult result = new ScenarioResult(
+                scenario,
+                datacenter.getPower() / (3600 * 1000),
+                datacenter.getMigrationCount(),
+                broker.getVmsCreatedList().size(),
+                broker.getCloudletsReceived(),
+                lastClock,
+                System.currentTimeMillis() - start,
+                SlaMetrics.compute(hostList, vmList, vmAllocationPolicy.getConsolidation()));
+        result.setDatacenter(datacenter);
+        return result;
     }
 
 }
@@ -0,0 +1,156 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Qualidade do empacotamento das políticas, medida só na alocação, sem
+ * simular a execução: cada política recebe os mesmos hosts e VMs do cenário e
+ * aloca as VMs uma a uma, na ordem de chegada, como o broker faz.
+ *
+ * São medidos as VMs alocadas, os hosts ligados (com alguma VM), os racks
+ * ligados na {@link HostTopology} do cenário, a fração dos Mips e da Ram dos
+ * hosts ligados que foi alocada e o tempo médio de uma alocação. A última coluna é
+ * a razão entre os hosts ligados da política e os da linha de base, por padrão
+ * o {@link BestFitCpuAllocationPolicy}; acima de 1, a política liga mais
+ * hosts para as mesmas VMs. Sem a simulação, os cenários de milhões de hosts
+ * cabem na memória de uma JVM comum.
+ *
+ * Uso: {@code PackingComparison [policies=Sampled,BestFitCpu] [hosts=100000]
+ * [vms=125000] [seed=1] [baseline=BestFitCpu]}; os tipos de host e VM e as
+ * opções da política Sampled vêm do arquivo de cenário ({@code -Dscenario}).
+ */
+public class PackingComparison {
+
+    private List<String> policies = Arrays.asList("Sampled");
+
+    private int hosts = 100000;
+
+    private int vms = 125000;
+
+    private long seed = ScenarioConfig.getDefault().getSeeds().get(0);
+
+    private String baseline = "BestFitCpu";
+
+    public static void main(String[] args) throws Exception {
+        PackingComparison comparison = new PackingComparison();
+        for (String arg : args) {
+            comparison.configure(arg);
+        }
+        comparison.run();
+    }
+
+    private void configure(String option) {
+        int eq = option.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Expected key=value, got " + option);
+        }
+        String key = option.substring(0, eq);
+        String value = option.substring(eq + 1);
+        switch (key) {
+            case "policies":
+                policies = new ArrayList<String>();
+                for (String policy : value.split(",")) {
+                    if (!AllocationPolicies.NAMES.contains(policy)) {
+                        throw new IllegalArgumentException("Unknown allocation policy " + policy
+                                + "; expected one of " + AllocationPolicies.NAMES);
+                    }
+                    policies.add(policy);
+                }
+                break;
+            case "hosts":
+                hosts = Integer.parseInt(value);
+                break;
+            case "vms":
+                vms = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "baseline":
+                baseline = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + key);
+        }
+    }
+
+    /**
+     * Places the VMs with every policy and prints one line per policy. The
+     * baseline policy runs first, even when it is not in the policy list.
+     */
+    public void run() {
+        ScenarioConfig config = ScenarioConfig.getCurrent();
+        List<String> order = new ArrayList<String>();
+        order.add(baseline);
+        for (String policy : policies) {
+            if (!order.contains(policy)) {
+                order.add(policy);
+            }
+        }
+
+        Log.printLine("Packing of " + vms + " VMs in " + hosts + " hosts, baseline " + baseline);
+        Log.printLine("Policy\tPlaced\tActive hosts\tActive racks\tMips used\tRam used\tPlacement (us)\tActive/baseline");
+        double baselineActive = 0;
+        for (String policy : order) {
+            double[] values = place(config, policy);
+            if (policy.equals(baseline)) {
+                baselineActive = values[1];
+            }
+            Log.printLine(String.format("%s\t%.0f\t%.0f\t%.0f\t%.3f\t%.3f\t%.2f\t%.3f",
+                    policy, values[0], values[1], values[2], values[3], values[4], values[5],
+                    values[1] / baselineActive));
+        }
+    }
+
+    /**
+     * Places the VMs of the scenario with one policy.
+     *
+     * @return placed VMs, active hosts, active racks, fraction of the mips
+     * and of the ram of the active hosts allocated and mean placement time in
+     * microseconds
+     */
+    private double[] place(ScenarioConfig config, String policyName) {
+        List<PowerHost> hostList = Main.createHostList(config, hosts);
+        List<Vm> vmList = Main.createVmList(config, 0, vms);
+        BaseAllocationPolicy policy = AllocationPolicies.create(policyName, hostList, seed, config);
+
+        int placed = 0;
+        long start = System.nanoTime();
+        for (Vm vm : vmList) {
+            if (policy.allocateHostForVm(vm)) {
+                placed++;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        AllocationTable table = policy.getAllocationTable();
+        int active = 0;
+        double totalMips = 0;
+        double freeMips = 0;
+        long totalRam = 0;
+        long freeRam = 0;
+        for (int slot = 0; slot < table.getHostCount(); slot++) {
+            PowerHost host = table.getHostAt(slot);
+            if (host.getVmList().isEmpty()) {
+                continue;
+            }
+            active++;
+            totalMips += host.getTotalMips();
+            freeMips += table.getFreeMips(slot);
+            totalRam += host.getRam();
+            freeRam += table.getFreeRam(slot);
+        }
+        return new double[]{
+            placed,
+            active,
+            new HostTopology(table, config.getHostsPerRack(), config.getRacksPerPod()).getActiveRacks(),
+            active == 0 ? 0 : 1 - freeMips / totalMips,
+            active == 0 ? 0 : 1 - (double) freeRam / totalRam,
+            nanos / 1000.0 / vmList.size()};
+    }
+
+}
@@ -0,0 +1,228 @@
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro dos eventos das políticas de alocação, com nível, formatação
+ * adiada e escrita assíncrona em lotes.
+ *
+ * Cada evento guarda apenas o tipo, o relógio da simulação e dois inteiros;
+ * o texto só é montado pela thread de escrita, que esvazia a fila em lotes e
+ * faz uma única escrita por lote. Com o nível desligado, registrar um evento
+ * custa uma comparação, sem montar textos nem criar objetos.
+ *
+ * Registrar nunca bloqueia a simulação: com a fila cheia o evento é
+ * descartado e contado ({@link #getDroppedEvents()}). Se a escrita falhar, a
+ * thread guarda o erro ({@link #getFailure()}) e passa a descartar os eventos
+ * até o {@link #close()}, que assim não fica esperando por ela.
+ */
+public class PolicyEventLog {
+
+    /**
+     * Níveis de registro, do mais restrito ao mais detalhado.
+     */
+    public enum Level {
+        OFF, WARN, INFO, DEBUG
+    }
+
+    /**
+     * Tipos de evento, com o nível e o formato da mensagem; os argumentos do
+     * formato são o relógio e os dois inteiros do evento.
+     */
+    public enum Type {
+        ALLOCATED(Level.INFO, "%.2f: VM #%d has been allocated to the host #%d"),
+        NO_HOST(Level.WARN, "%.2f: No suitable host found for VM #%d"),
+        DEALLOCATED(Level.DEBUG, "%.2f: VM #%d has been deallocated from the host #%d"),
+        MIGRATIONS_PLANNED(Level.INFO, "%.2f: Consolidation planned %d migrations");
+
+        private final Level level;
+
+        private final String format;
+
+        Type(Level level, String format) {
+            this.level = level;
+            this.format = format;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+    }
+
+    /**
+     * Registro desligado, compartilhado por todas as políticas que não têm
+     * um registro próprio. Não tem fila nem thread.
+     */
+    public static final PolicyEventLog OFF = new PolicyEventLog();
+
+    private static final int QUEUE_CAPACITY = 8192;
+
+    private static final int BATCH_SIZE = 1024;
+
+    private static final class Event {
+
+        final Type type;
+        final double clock;
+        final int first;
+        final int second;
+
+        Event(Type type, double clock, int first, int second) {
+            this.type = type;
+            this.clock = clock;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Evento que pede o fim da thread de escrita.
+     */
+    private static final Event CLOSE = new Event(null, 0, 0, 0);
+
+    private final Level level;
+
+    private final BlockingQueue<Event> queue;
+
+    private final OutputStream output;
+
+    private final Thread writer;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private volatile IOException failure;
+
+    private volatile boolean closed;
+
+    private PolicyEventLog() {
+        this.level = Level.OFF;
+        this.queue = null;
+        this.output = null;
+        this.writer = null;
+    }
+
+    /**
+     * Creates a log and starts its writer thread.
+     *
+     * @param level the most detailed level recorded
+     * @param output where the messages are written, e.g. {@link org.cloudbus.cloudsim.Log#getOutput()}
+     */
+    public PolicyEventLog(Level level, OutputStream output) {
+        this.level = level;
+        this.queue = new ArrayBlockingQueue<Event>(QUEUE_CAPACITY);
+        this.output = output;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "policy-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Checks whether a level is recorded.
+     *
+     * @param eventLevel the level
+     * @return $true if events of the level are recorded
+     */
+    public boolean isEnabled(Level eventLevel) {
+        return eventLevel.ordinal() <= level.ordinal() && eventLevel != Level.OFF;
+    }
+
+    /**
+     * Records an event, if its level is enabled. Never blocks: the event is
+     * dropped and counted when the queue is full, and ignored after a write
+     * failure.
+     *
+     * @param type the event type
+     * @param clock the simulation clock
+     * @param first the first argument of the message
+     * @param second the second argument of the message
+     */
+    public void log(Type type, double clock, int first, int second) {
+        if (!isEnabled(type.level) || closed || failure != null) {
+            return;
+        }
+        if (!queue.offer(new Event(type, clock, first, second))) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of events dropped because the queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Gets the error that stopped the writing of the messages.
+     *
+     * @return the error; $null if every write succeeded
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Writes the pending events and stops the writer thread. Events logged
+     * afterwards are ignored.
+     */
+    public void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        List<Event> batch = new ArrayList<Event>(BATCH_SIZE);
+        StringBuilder text = new StringBuilder();
+        boolean done = false;
+        while (!done) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            text.setLength(0);
+            for (Event event : batch) {
+                if (event == CLOSE) {
+                    done = true;
+                    break;
+                }
+                if (failure == null) {
+                    text.append(String.format(event.type.format, event.clock, event.first, event.second))
+                            .append(System.lineSeparator());
+                }
+            }
+            batch.clear();
+            if (text.length() == 0) {
+                continue;
+            }
+            try {
+                output.write(text.toString().getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+}
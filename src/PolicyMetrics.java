@@ -0,0 +1,192 @@
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentação de uma política de alocação: latência da busca de host, da
+ * alocação e da liberação, hosts examinados, hosts rejeitados por
+ * {@code BaseAllocationPolicy.isSuitableForVm} e falhas.
+ *
+ * A política só chama estes métodos quando tem uma instância associada; sem
+ * ela, o custo é um teste de $null por operação. Os contadores são escritos
+ * apenas pela thread da simulação; leituras por JMX, de outra thread, podem
+ * ver valores um pouco atrasados.
+ */
+public class PolicyMetrics implements PolicyMetricsMBean {
+
+    private final LatencyHistogram search = new LatencyHistogram();
+
+    private final LatencyHistogram allocation = new LatencyHistogram();
+
+    private final LatencyHistogram deallocation = new LatencyHistogram();
+
+    private long searchFailures;
+
+    private long allocationFailures;
+
+    private long candidatesExamined;
+
+    private long rejections;
+
+    private ObjectName objectName;
+
+    /**
+     * Records a host search.
+     *
+     * @param nanos the search time
+     * @param found $true if a host was found
+     */
+    public void searched(long nanos, boolean found) {
+        search.record(nanos);
+        if (!found) {
+            searchFailures++;
+        }
+    }
+
+    /**
+     * Records an allocation attempt in a chosen host.
+     *
+     * @param nanos the allocation time
+     * @param allocated $true if the VM was created in the host
+     */
+    public void allocated(long nanos, boolean allocated) {
+        allocation.record(nanos);
+        if (!allocated) {
+            allocationFailures++;
+        }
+    }
+
+    /**
+     * Records a deallocation.
+     *
+     * @param nanos the deallocation time
+     */
+    public void deallocated(long nanos) {
+        deallocation.record(nanos);
+    }
+
+    /**
+     * Records a candidate host checked by a host selector.
+     *
+     * @param suitable $true if the host was accepted
+     */
+    public void examined(boolean suitable) {
+        candidatesExamined++;
+        if (!suitable) {
+            rejections++;
+        }
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server.
+     *
+     * @param name the value of the name key of the object name
+     * @throws JMException if the registration fails
+     */
+    public void register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        objectName = new ObjectName("tcc:type=AllocationPolicy,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if registered.
+     *
+     * @throws JMException if the removal fails
+     */
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public long getSearches() {
+        return search.getCount();
+    }
+
+    @Override
+    public long getSearchFailures() {
+        return searchFailures;
+    }
+
+    @Override
+    public long getAllocations() {
+        return allocation.getCount();
+    }
+
+    @Override
+    public long getAllocationFailures() {
+        return allocationFailures;
+    }
+
+    @Override
+    public long getDeallocations() {
+        return deallocation.getCount();
+    }
+
+    @Override
+    public long getCandidatesExamined() {
+        return candidatesExamined;
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public double getSearchMeanMicros() {
+        return search.getMean() / 1000;
+    }
+
+    @Override
+    public double getSearchP99Micros() {
+        return search.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getAllocationMeanMicros() {
+        return allocation.getMean() / 1000;
+    }
+
+    @Override
+    public double getAllocationP99Micros() {
+        return allocation.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getDeallocationMeanMicros() {
+        return deallocation.getMean() / 1000;
+    }
+
+    @Override
+    public double getDeallocationP99Micros() {
+        return deallocation.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public String getSummary() {
+        double perSearch = search.getCount() == 0 ? 0 : (double) candidatesExamined / search.getCount();
+        return "Host search:  " + search + ", " + searchFailures + " without host\n"
+                + "Allocation:   " + allocation + ", " + allocationFailures + " failed\n"
+                + "Deallocation: " + deallocation + "\n"
+                + String.format("Candidates:   %d examined (%.1f per search), %d rejected",
+                        candidatesExamined, perSearch, rejections);
+    }
+
+    @Override
+    public void reset() {
+        search.reset();
+        allocation.reset();
+        deallocation.reset();
+        searchFailures = 0;
+        allocationFailures = 0;
+        candidatesExamined = 0;
+        rejections = 0;
+    }
+
+}
@@ -0,0 +1,37 @@
+
+/**
+ * Interface JMX de {@link PolicyMetrics}.
+ */
+public interface PolicyMetricsMBean {
+
+    long getSearches();
+
+    long getSearchFailures();
+
+    long getAllocations();
+
+    long getAllocationFailures();
+
+    long getDeallocations();
+
+    long getCandidatesExamined();
+
+    long getRejections();
+
+    double getSearchMeanMicros();
+
+    double getSearchP99Micros();
+
+    double getAllocationMeanMicros();
+
+    double getAllocationP99Micros();
+
+    double getDeallocationMeanMicros();
+
+    double getDeallocationP99Micros();
+
+    String getSummary();
+
+    void reset();
+
+}
@@ -0,0 +1,29 @@
+
+import java.util.List;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Alocação em dois níveis, rack e host ({@link RackAwareHostSelector}), com os
+ * hosts em menos Ram livre primeiro dentro do rack.
+ */
+public class RackAwareAllocationPolicy extends BaseAllocationPolicy {
+
+    public RackAwareAllocationPolicy(List<PowerHost> list) {
+        this(list, HostTopology.DEFAULT_HOSTS_PER_RACK, HostTopology.DEFAULT_RACKS_PER_POD);
+    }
+
+    public RackAwareAllocationPolicy(List<PowerHost> list, int hostsPerRack, int racksPerPod) {
+        super(list);
+        setHostSelector(new RackAwareHostSelector(BestFitRamAllocationPolicy.SCORER, hostsPerRack, racksPerPod));
+    }
+
+    /**
+     * Gets the topology of the hosts, with the aggregates per rack and pod.
+     *
+     * @return the topology
+     */
+    public HostTopology getTopology() {
+        return ((RackAwareHostSelector) getHostSelector()).getTopology();
+    }
+
+}
@@ -0,0 +1,109 @@
+
+import java.util.BitSet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Escolha em dois níveis sobre a {@link HostTopology}: primeiro o rack, depois
+ * o host dentro dele.
+ *
+ * Os pods e os racks são percorridos em ordem e os que não têm nenhum host com
+ * Ram e núcleos livres suficientes são descartados pelo agregado, sem olhar os
+ * seus hosts; as duas condições são necessárias para o filtro do
+ * {@link BaseAllocationPolicy}, como no {@link FirstFitHostSelector}. No
+ * primeiro rack com algum host adequado, fica o melhor deles pela nota de um
+ * {@link HostScorer}. Os racks do início são enchidos primeiro, então os do fim
+ * ficam sem VMs e podem ser desligados ({@link HostTopology#isIdle(int)}).
+ */
+public class RackAwareHostSelector implements HostSelector {
+
+    private final HostScorer scorer;
+
+    private final int hostsPerRack;
+
+    private final int racksPerPod;
+
+    private BaseAllocationPolicy policy;
+
+    private HostTopology topology;
+
+    public RackAwareHostSelector(HostScorer scorer, int hostsPerRack, int racksPerPod) {
+        this.scorer = scorer;
+        this.hostsPerRack = hostsPerRack;
+        this.racksPerPod = racksPerPod;
+    }
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        this.topology = new HostTopology(policy.getAllocationTable(), hostsPerRack, racksPerPod);
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        // a Ram da própria VM conta como livre no rack em que ela está
+        int own = table.getHostSlot(vm.getId(), vm.getUserId());
+        int ownRack = own == AllocationTable.NO_HOST ? -1 : topology.getRackOf(own);
+        int ownPod = own == AllocationTable.NO_HOST ? -1 : topology.getPodOf(ownRack);
+        BitSet candidates = policy.getCandidateHosts(vm);
+        int ram = vm.getCurrentRequestedRam();
+        int pes = policy.isBatchPlanning() ? Integer.MIN_VALUE : 1;
+        for (int pod = 0; pod < topology.getPodCount(); pod++) {
+            if (pod != ownPod && !topology.podMayFit(pod, ram, pes)) {
+                continue;
+            }
+            for (int rack = topology.getFirstRack(pod); rack < topology.getRackEnd(pod); rack++) {
+                if (rack != ownRack && !topology.mayFit(rack, ram, pes)) {
+                    continue;
+                }
+                int slot = selectInRack(rack, vm, candidates);
+                if (slot >= 0) {
+                    return table.getHostAt(slot);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chooses the best suitable host of a rack by the score.
+     *
+     * @return the slot; -1 if no host of the rack is suitable
+     */
+    private int selectInRack(int rack, Vm vm, BitSet candidates) {
+        AllocationTable table = policy.getAllocationTable();
+        int min = scorer.minScore(vm);
+        int best = -1;
+        int bestScore = 0;
+        for (int slot = topology.getFirstHost(rack); slot < topology.getHostEnd(rack); slot++) {
+            if (candidates != null && !candidates.get(slot)) {
+                continue;
+            }
+            int score = scorer.score(table, slot);
+            if (score < min || (best >= 0 && (scorer.isDescending() ? score <= bestScore : score >= bestScore))) {
+                continue;
+            }
+            if (policy.isSuitableForVm(slot, vm)) {
+                best = slot;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        topology.hostUpdated(slot);
+    }
+
+    /**
+     * Gets the topology of the hosts, with the aggregates per rack and pod.
+     *
+     * @return the topology
+     */
+    public HostTopology getTopology() {
+        return topology;
+    }
+
+}
@@ -0,0 +1,69 @@
+
+import java.util.BitSet;
+import java.util.Random;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Escolhe, com probabilidade uniforme, um dos hosts adequados para a VM.
+ *
+ * Sorteia apenas entre os hosts que ainda têm núcleos livres, sem repetir
+ * hosts, então termina após no máximo um teste por host e devolve $null quando
+ * nenhum host comporta a VM. O gerador é único por seletor e criado a partir
+ * de uma semente, o que torna as execuções reproduzíveis.
+ */
+public class RandomHostSelector implements HostSelector {
+
+    private final Random random;
+
+    private BaseAllocationPolicy policy;
+
+    /**
+     * Hosts com núcleos livres.
+     */
+    private FeasibleHostSet feasible;
+
+    public RandomHostSelector(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        AllocationTable table = policy.getAllocationTable();
+        this.feasible = new FeasibleHostSet(table.getHostCount());
+        for (int slot = 0; slot < table.getHostCount(); slot++) {
+            hostUpdated(slot);
+        }
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        BitSet candidates = policy.getCandidateHosts(vm);
+        for (int drawn = 0; drawn < feasible.size(); drawn++) {
+            int slot = feasible.draw(random, drawn);
+            if (candidates != null && !candidates.get(slot)) {
+                continue;
+            }
+            if (policy.isSuitableForVm(slot, vm)) {
+                return policy.getAllocationTable().getHostAt(slot);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        feasible.set(slot, policy.getAllocationTable().getFreePes(slot) > 0);
+    }
+
+    /**
+     * Gets the hosts that still have free pes.
+     *
+     * @return the feasible host set
+     */
+    public FeasibleHostSet getFeasible() {
+        return feasible;
+    }
+
+}
@@ -0,0 +1,221 @@
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.HostDynamicWorkload;
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmStateHistoryEntry;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Destino dos resultados detalhados de uma simulação: uma linha por cloudlet
+ * devolvido, por VM e por host.
+ *
+ * Os cloudlets são gravados à medida que voltam ao broker, ver
+ * {@link StreamingDatacenterBroker}; as VMs e os hosts, um a um no fim da
+ * simulação. Nenhuma tabela é montada em memória: cada linha vai direto para
+ * o buffer da implementação, que decide o formato do arquivo.
+ */
+public abstract class ResultSink {
+
+    /**
+     * Tabelas de resultados, com os nomes e os tipos das colunas.
+     */
+    public enum Table {
+        CLOUDLETS("cloudlets",
+                new String[]{"cloudletId", "status", "datacenterId", "vmId", "cpuTime", "startTime", "finishTime"},
+                new boolean[]{false, false, false, false, true, true, true}),
+        VMS("vms",
+                new String[]{"vmId", "hostId", "mips", "pes", "ram", "meanRequestedMips", "meanAllocatedMips"},
+                new boolean[]{false, false, true, false, false, true, true}),
+        HOSTS("hosts",
+                new String[]{"hostId", "mips", "pes", "ram", "vms", "meanRequestedMips", "meanAllocatedMips",
+                    "activeFraction"},
+                new boolean[]{false, false, false, false, false, true, true, true});
+
+        private final String name;
+
+        private final String[] columns;
+
+        /**
+         * Para cada coluna, $true se é um double e $false se é um int.
+         */
+        private final boolean[] decimal;
+
+        Table(String name, String[] columns, boolean[] decimal) {
+            this.name = name;
+            this.columns = columns;
+            this.decimal = decimal;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String[] getColumns() {
+            return columns.clone();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        public String getColumn(int column) {
+            return columns[column];
+        }
+
+        public boolean isDecimal(int column) {
+            return decimal[column];
+        }
+    }
+
+    /**
+     * Destino que descarta os resultados.
+     */
+    public static final ResultSink NONE = new ResultSink() {
+        @Override
+        protected void putInt(Table table, int value) {
+        }
+
+        @Override
+        protected void putDouble(Table table, double value) {
+        }
+
+        @Override
+        protected void endRow(Table table) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Creates a sink by format name.
+     *
+     * @param format csv, columnar or none
+     * @param folder the folder of the result files
+     * @param prefix the prefix of the file names, e.g. the scenario name
+     * @return the sink
+     * @throws IOException if a file cannot be created
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static ResultSink create(String format, String folder, String prefix) throws IOException {
+        switch (format) {
+            case "csv":
+                return new CsvResultSink(new File(folder), prefix);
+            case "columnar":
+                return new ColumnarResultSink(new File(folder), prefix);
+            case "none":
+                return NONE;
+            default:
+                throw new IllegalArgumentException("Unknown result format " + format + "; expected csv, columnar or none");
+        }
+    }
+
+    /**
+     * Writes a cloudlet that returned to the broker.
+     *
+     * @param cloudlet the cloudlet
+     */
+    public void cloudletReturned(Cloudlet cloudlet) {
+        putInt(Table.CLOUDLETS, cloudlet.getCloudletId());
+        putInt(Table.CLOUDLETS, cloudlet.getCloudletStatus());
+        putInt(Table.CLOUDLETS, cloudlet.getResourceId());
+        putInt(Table.CLOUDLETS, cloudlet.getVmId());
+        putDouble(Table.CLOUDLETS, cloudlet.getActualCPUTime());
+        putDouble(Table.CLOUDLETS, cloudlet.getExecStartTime());
+        putDouble(Table.CLOUDLETS, cloudlet.getFinishTime());
+        endRow(Table.CLOUDLETS);
+    }
+
+    /**
+     * Writes the VMs at the end of the simulation.
+     *
+     * @param vmList the VMs
+     */
+    public void writeVms(List<? extends Vm> vmList) {
+        for (Vm vm : vmList) {
+            List<VmStateHistoryEntry> history = vm.getStateHistory();
+            double requested = 0;
+            double allocated = 0;
+            for (VmStateHistoryEntry entry : history) {
+                requested += entry.getRequestedMips();
+                allocated += entry.getAllocatedMips();
+            }
+            int samples = Math.max(1, history.size());
+            putInt(Table.VMS, vm.getId());
+            putInt(Table.VMS, vm.getHost() == null ? -1 : vm.getHost().getId());
+            putDouble(Table.VMS, vm.getMips());
+            putInt(Table.VMS, vm.getNumberOfPes());
+            putInt(Table.VMS, vm.getRam());
+            putDouble(Table.VMS, requested / samples);
+            putDouble(Table.VMS, allocated / samples);
+            endRow(Table.VMS);
+        }
+    }
+
+    /**
+     * Writes the hosts at the end of the simulation.
+     *
+     * @param hostList the hosts
+     */
+    public void writeHosts(List<? extends PowerHost> hostList) {
+        for (HostDynamicWorkload host : hostList) {
+            List<HostStateHistoryEntry> history = host.getStateHistory();
+            double requested = 0;
+            double allocated = 0;
+            int active = 0;
+            for (HostStateHistoryEntry entry : history) {
+                requested += entry.getRequestedMips();
+                allocated += entry.getAllocatedMips();
+                if (entry.isActive()) {
+                    active++;
+                }
+            }
+            int samples = Math.max(1, history.size());
+            putInt(Table.HOSTS, host.getId());
+            putInt(Table.HOSTS, host.getTotalMips());
+            putInt(Table.HOSTS, host.getNumberOfPes());
+            putInt(Table.HOSTS, host.getRam());
+            putInt(Table.HOSTS, host.getVmList().size());
+            putDouble(Table.HOSTS, requested / samples);
+            putDouble(Table.HOSTS, allocated / samples);
+            putDouble(Table.HOSTS, (double) active / samples);
+            endRow(Table.HOSTS);
+        }
+    }
+
+    /**
+     * Appends an int to the current row of a table.
+     *
+     * @param table the table
+     * @param value the value
+     */
+    protected abstract void putInt(Table table, int value);
+
+    /**
+     * Appends a double to the current row of a table.
+     *
+     * @param table the table
+     * @param value the value
+     */
+    protected abstract void putDouble(Table table, double value);
+
+    /**
+     * Ends the current row of a table.
+     *
+     * @param table the table
+     */
+    protected abstract void endRow(Table table);
+
+    /**
+     * Writes the pending rows and closes the files.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public abstract void close() throws IOException;
+
+}
@@ -0,0 +1,86 @@
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Alocação por amostragem de d hosts ({@link SampledHostSelector}), para
+ * datacenters grandes demais para as políticas que percorrem os hosts.
+ *
+ * A nota que escolhe entre os hosts sorteados é uma de {@link #SCORES}: os
+ * núcleos livres e a Ram livre do best fit, ou a eficiência de Lago et al.
+ */
+public class SampledAllocationPolicy extends BaseAllocationPolicy {
+
+    /**
+     * Número de hosts sorteados quando nenhum é informado.
+     */
+    public static final int DEFAULT_CHOICES = 2;
+
+    /**
+     * Nota usada quando nenhuma é informada.
+     */
+    public static final String DEFAULT_SCORE = "ram";
+
+    /**
+     * Notas aceitas por {@link #scorer(String)}.
+     */
+    public static final List<String> SCORES = Collections.unmodifiableList(Arrays.asList(
+            "cpu",
+            "ram",
+            "efficiency"));
+
+    /**
+     * Hosts mais eficientes primeiro: Mips por Watt no pico, em milésimos, a
+     * mesma ordem das faixas do {@link LagoHostSelector}.
+     */
+    public static final HostScorer EFFICIENCY = new HostScorer() {
+        @Override
+        public int score(AllocationTable table, int slot) {
+            PowerHost host = table.getHostAt(slot);
+            return (int) Math.round(host.getTotalMips() * 1000 / host.getMaxPower());
+        }
+
+        @Override
+        public int minScore(Vm vm) {
+            return Integer.MIN_VALUE;
+        }
+
+        @Override
+        public boolean isDescending() {
+            return true;
+        }
+    };
+
+    public SampledAllocationPolicy(List<PowerHost> list) {
+        this(list, DEFAULT_CHOICES, DEFAULT_SCORE, RandomAllocationPolicy.DEFAULT_SEED);
+    }
+
+    public SampledAllocationPolicy(List<PowerHost> list, int choices, String score, long seed) {
+        super(list);
+        setHostSelector(new SampledHostSelector(scorer(score), choices, seed));
+    }
+
+    /**
+     * Gets the scorer of a score name.
+     *
+     * @param score cpu, ram or efficiency
+     * @return the scorer
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static HostScorer scorer(String score) {
+        switch (score) {
+            case "cpu":
+                return BestFitCpuAllocationPolicy.SCORER;
+            case "ram":
+                return BestFitRamAllocationPolicy.SCORER;
+            case "efficiency":
+                return EFFICIENCY;
+            default:
+                throw new IllegalArgumentException("Unknown score " + score + "; expected one of " + SCORES);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+
+import java.util.BitSet;
+import java.util.Random;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Amostragem de d escolhas ("power of d choices"): sorteia hosts até achar d
+ * que comportam a VM e escolhe o melhor deles pela nota de um
+ * {@link HostScorer}; em caso de empate fica o primeiro sorteado.
+ *
+ * Os sorteios são sem repetição entre os hosts com núcleos livres, como no
+ * {@link RandomHostSelector}. Enquanto uma fração constante dos hosts comporta
+ * a VM, a escolha custa O(d), independente do número de hosts; quando quase
+ * nenhum comporta, ela degrada para o limite do sorteio uniforme, um teste por
+ * host. Com d = 1 a escolha é a da política aleatória; com d igual ao número de
+ * hosts, a do melhor host pela nota.
+ */
+public class SampledHostSelector implements HostSelector {
+
+    private final HostScorer scorer;
+
+    private final int choices;
+
+    private final Random random;
+
+    private BaseAllocationPolicy policy;
+
+    /**
+     * Hosts com núcleos livres.
+     */
+    private FeasibleHostSet feasible;
+
+    public SampledHostSelector(HostScorer scorer, int choices, long seed) {
+        if (choices < 1) {
+            throw new IllegalArgumentException("choices must be positive, got " + choices);
+        }
+        this.scorer = scorer;
+        this.choices = choices;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        AllocationTable table = policy.getAllocationTable();
+        this.feasible = new FeasibleHostSet(table.getHostCount());
+        for (int slot = 0; slot < table.getHostCount(); slot++) {
+            hostUpdated(slot);
+        }
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        BitSet candidates = policy.getCandidateHosts(vm);
+        int min = scorer.minScore(vm);
+        int best = -1;
+        int bestScore = 0;
+        int probed = 0;
+        for (int drawn = 0; drawn < feasible.size() && probed < choices; drawn++) {
+            int slot = feasible.draw(random, drawn);
+            if (candidates != null && !candidates.get(slot)) {
+                continue;
+            }
+            int score = scorer.score(table, slot);
+            if (score < min || !policy.isSuitableForVm(slot, vm)) {
+                continue;
+            }
+            probed++;
+            if (best < 0 || (scorer.isDescending() ? score > bestScore : score < bestScore)) {
+                best = slot;
+                bestScore = score;
+            }
+        }
+        return best < 0 ? null : table.<PowerHost>getHostAt(best);
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        feasible.set(slot, policy.getAllocationTable().getFreePes(slot) > 0);
+    }
+
+    /**
+     * Gets the scorer that ranks the sampled hosts.
+     *
+     * @return the scorer
+     */
+    public HostScorer getScorer() {
+        return scorer;
+    }
+
+    /**
+     * Gets the number of suitable hosts sampled per VM.
+     *
+     * @return d
+     */
+    public int getChoices() {
+        return choices;
+    }
+
+}
@@ -0,0 +1,126 @@
+
+/**
+ * Um cenário de experimento: a política de alocação, o número de hosts e de
+ * VMs e a semente usada na carga dos cloudlets e nas políticas aleatórias,
+ * com os tipos de host e de VM e a carga de um {@link ScenarioConfig}.
+ */
+public class Scenario {
+
+    /**
+     * Sufixo do nome da política quando as VMs são posicionadas em lote
+     * ({@code placement.batch=true}).
+     */
+    public static final String BATCH_SUFFIX = "-batch";
+
+    private final String policy;
+
+    private final int hosts;
+
+    private final int vms;
+
+    private final long seed;
+
+    private final ScenarioConfig config;
+
+    /**
+     * Creates a scenario with the configuration of this JVM, see
+     * {@link ScenarioConfig#getCurrent()}.
+     */
+    public Scenario(String policy, int hosts, int vms, long seed) {
+        this(policy, hosts, vms, seed, ScenarioConfig.getCurrent());
+    }
+
+    public Scenario(String policy, int hosts, int vms, long seed, ScenarioConfig config) {
+        this.policy = policy;
+        this.hosts = hosts;
+        this.vms = vms;
+        this.seed = seed;
+        this.config = config;
+    }
+
+    /**
+     * Reads a scenario from command line arguments, in the order written by
+     * {@link #toArgs()}.
+     *
+     * @param args the arguments: policy, hosts, vms and seed
+     * @return the scenario
+     * @throws IllegalArgumentException if the arguments are malformed
+     */
+    public static Scenario fromArgs(String[] args) {
+        return fromArgs(args, ScenarioConfig.getCurrent());
+    }
+
+    /**
+     * Reads a scenario from command line arguments, with the given
+     * configuration.
+     *
+     * @param args the arguments: policy, hosts, vms and seed
+     * @param config the configuration
+     * @return the scenario
+     * @throws IllegalArgumentException if the arguments are malformed
+     */
+    public static Scenario fromArgs(String[] args, ScenarioConfig config) {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Expected <policy> <hosts> <vms> <seed>");
+        }
+        return new Scenario(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]),
+                config);
+    }
+
+    /**
+     * Writes the scenario as command line arguments. The configuration is not
+     * included; other processes read it from the {@value ScenarioConfig#PROPERTY}
+     * system property.
+     *
+     * @return the arguments: policy, hosts, vms and seed
+     */
+    public String[] toArgs() {
+        return new String[]{policy, String.valueOf(hosts), String.valueOf(vms), String.valueOf(seed)};
+    }
+
+    /**
+     * Gets a name for the scenario, usable as experiment name and file name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return getPolicyName() + "_" + hosts + "_" + vms + "_" + seed;
+    }
+
+    /**
+     * Gets the name of the policy in reports: the policy, with the suffix
+     * {@value #BATCH_SUFFIX} when the configuration places the VMs in a
+     * batch, so the two variants are not mixed up.
+     *
+     * @return the policy name
+     */
+    public String getPolicyName() {
+        return config.isBatchPlacement() ? policy + BATCH_SUFFIX : policy;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public int getHosts() {
+        return hosts;
+    }
+
+    public int getVms() {
+        return vms;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public ScenarioConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
@@ -0,0 +1,748 @@
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+/**
+ * Configuração dos cenários lida de um arquivo de propriedades: os tipos de
+ * host e de VM, os modelos de energia, a carga dos cloudlets, o intervalo e o
+ * limite da simulação e a matriz de cenários (políticas, hosts, VMs e
+ * sementes).
+ *
+ * Os valores por tipo são listas separadas por vírgula, na ordem dos tipos;
+ * as chaves ausentes ficam com os valores padrão, que só são definidos aqui
+ * ({@code scenarios/default.properties} é um cenário com esses mesmos
+ * valores, comentados). Um arquivo com só as chaves que mudam já é um cenário válido:
+ * <pre>
+ * policies=FirstFit,BestFitCpu
+ * hosts=500,2000
+ * seeds=1-10
+ * host.mips=2000,1000
+ * host.pes=4,2
+ * host.ram=16384,16384
+ * host.power=PowerModelSpecPowerHpProLiantMl110G4Xeon3040,PowerModelSpecPowerIbmX3250XeonX3470
+ * </pre>
+ *
+ * O arquivo inteiro é validado na carga e todos os erros são informados de
+ * uma vez, antes de qualquer simulação começar. A configuração desta JVM vem
+ * do arquivo da propriedade de sistema {@code scenario}
+ * ({@code -Dscenario=sweep.properties}), ver {@link #getCurrent()}.
+ */
+public class ScenarioConfig {
+
+    /**
+     * Propriedade de sistema com o caminho do arquivo de cenário.
+     */
+    public static final String PROPERTY = "scenario";
+
+    private static final String POWER_MODEL_PACKAGE = "org.cloudbus.cloudsim.power.models.";
+
+    private static final Set<String> KEYS = new HashSet<String>(Arrays.asList(
+            "policies", "hosts", "vms", "seeds",
+            "scheduling.interval", "scheduling.mode", "simulation.limit",
+            "consolidation.enabled", "consolidation.upperThreshold", "consolidation.lowerThreshold",
+            "consolidation.safety", "consolidation.hostsPerRound", "placement.batch",
+            "host.mips", "host.pes", "host.ram", "host.bw", "host.storage", "host.power",
+            "vm.mips", "vm.pes", "vm.ram", "vm.bw", "vm.size",
+            "cloudlet.length", "cloudlet.pes", "cloudlet.fileSize", "cloudlet.outputSize", "cloudlet.utilization",
+            "cloudlet.traces",
+            "sampling.choices", "sampling.score",
+            "topology.hostsPerRack", "topology.racksPerPod",
+            "check.consistency"));
+
+    private static ScenarioConfig current;
+
+    /**
+     * Arquivo de onde a configuração foi lida; $null para a configuração
+     * padrão.
+     */
+    private final File file;
+
+    private final List<String> errors = new ArrayList<String>();
+
+    private List<String> policies;
+
+    private List<Integer> hosts;
+
+    private List<Integer> vms;
+
+    private List<Long> seeds;
+
+    private double schedulingInterval;
+
+    private String schedulingMode;
+
+    private double simulationLimit;
+
+    private boolean consolidation;
+
+    private double consolidationUpperThreshold;
+
+    private double consolidationLowerThreshold;
+
+    private double consolidationSafety;
+
+    private int consolidationHostsPerRound;
+
+    private boolean batchPlacement;
+
+    private int[] hostMips;
+
+    private int[] hostPes;
+
+    private int[] hostRam;
+
+    private long[] hostBw;
+
+    private long[] hostStorage;
+
+    private PowerModel[] hostPower;
+
+    private int[] vmMips;
+
+    private int[] vmPes;
+
+    private int[] vmRam;
+
+    private long[] vmBw;
+
+    private long[] vmSize;
+
+    private long cloudletLength;
+
+    private int cloudletPes;
+
+    private long cloudletFileSize;
+
+    private long cloudletOutputSize;
+
+    private String cloudletUtilization;
+
+    private String cloudletTraces;
+
+    private int samplingChoices;
+
+    private String samplingScore;
+
+    private int hostsPerRack;
+
+    private int racksPerPod;
+
+    private boolean checkConsistency;
+
+    private ScenarioConfig(File file, Properties properties) {
+        this.file = file;
+        for (String key : properties.stringPropertyNames()) {
+            if (!KEYS.contains(key)) {
+                errors.add("unknown key " + key);
+            }
+        }
+        Properties values = defaults();
+        values.putAll(properties);
+        read(values);
+        validate();
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("Invalid scenario ")
+                    .append(file == null ? "defaults" : file.getPath()).append(':');
+            for (String error : errors) {
+                message.append(System.lineSeparator()).append("  ").append(error);
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+    }
+
+    /**
+     * Gets the configuration with the default value of every key.
+     *
+     * @return the default configuration
+     */
+    public static ScenarioConfig getDefault() {
+        return new ScenarioConfig(null, new Properties());
+    }
+
+    /**
+     * Loads and validates a scenario file.
+     *
+     * @param file the properties file
+     * @return the configuration
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file has unknown keys or
+     * invalid values; the message lists every error
+     */
+    public static ScenarioConfig load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return new ScenarioConfig(file.getAbsoluteFile(), properties);
+    }
+
+    /**
+     * Gets the configuration of this JVM: the file of the {@value #PROPERTY}
+     * system property or, when it is not set, the default configuration.
+     * The file is read once.
+     *
+     * @return the configuration
+     * @throws IllegalArgumentException if the file cannot be read or is
+     * invalid
+     */
+    public static synchronized ScenarioConfig getCurrent() {
+        if (current == null) {
+            String path = System.getProperty(PROPERTY);
+            if (path == null) {
+                current = getDefault();
+            } else {
+                try {
+                    current = load(new File(path));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot read scenario " + path, e);
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Properties defaults() {
+        Properties properties = new Properties();
+        properties.setProperty("policies", "WorstFitCpu");
+        properties.setProperty("hosts", "2000");
+        properties.setProperty("vms", "2500");
+        properties.setProperty("seeds", "1");
+        properties.setProperty("scheduling.interval", "300");
+        properties.setProperty("scheduling.mode", "interval");
+        properties.setProperty("simulation.limit", "86400");
+        properties.setProperty("consolidation.enabled", "false");
+        properties.setProperty("consolidation.upperThreshold",
+                String.valueOf(VmConsolidation.DEFAULT_UPPER_THRESHOLD));
+        properties.setProperty("consolidation.lowerThreshold",
+                String.valueOf(VmConsolidation.DEFAULT_LOWER_THRESHOLD));
+        properties.setProperty("consolidation.safety", String.valueOf(VmConsolidation.DEFAULT_SAFETY_PARAMETER));
+        properties.setProperty("consolidation.hostsPerRound",
+                String.valueOf(VmConsolidation.DEFAULT_MAX_HOSTS_PER_ROUND));
+        properties.setProperty("placement.batch", "false");
+        properties.setProperty("host.mips", "2000,1000");
+        properties.setProperty("host.pes", "4,2");
+        properties.setProperty("host.ram", "16384,16384");
+        properties.setProperty("host.bw", "1000000");
+        properties.setProperty("host.storage", "1000000");
+        properties.setProperty("host.power",
+                "PowerModelSpecPowerHpProLiantMl110G4Xeon3040,PowerModelSpecPowerHpProLiantMl110G4Xeon3040");
+        properties.setProperty("vm.mips", "600,300,200");
+        properties.setProperty("vm.pes", "4,2,1");
+        properties.setProperty("vm.ram", "4096,2048,2048");
+        properties.setProperty("vm.bw", "100000");
+        properties.setProperty("vm.size", "2500");
+        properties.setProperty("cloudlet.length", "216000000");
+        properties.setProperty("cloudlet.pes", "1");
+        properties.setProperty("cloudlet.fileSize", "300");
+        properties.setProperty("cloudlet.outputSize", "300");
+        properties.setProperty("cloudlet.utilization", "stochastic");
+        properties.setProperty("cloudlet.traces", "");
+        properties.setProperty("sampling.choices", String.valueOf(SampledAllocationPolicy.DEFAULT_CHOICES));
+        properties.setProperty("sampling.score", SampledAllocationPolicy.DEFAULT_SCORE);
+        properties.setProperty("topology.hostsPerRack", String.valueOf(HostTopology.DEFAULT_HOSTS_PER_RACK));
+        properties.setProperty("topology.racksPerPod", String.valueOf(HostTopology.DEFAULT_RACKS_PER_POD));
+        properties.setProperty("check.consistency", "false");
+        return properties;
+    }
+
+    private void read(Properties values) {
+        policies = new ArrayList<String>();
+        for (String policy : split(values, "policies")) {
+            if (!AllocationPolicies.NAMES.contains(policy)) {
+                errors.add("policies: unknown allocation policy " + policy + "; expected one of "
+                        + AllocationPolicies.NAMES);
+            }
+            policies.add(policy);
+        }
+        hosts = readRanges(values, "hosts");
+        vms = readRanges(values, "vms");
+        seeds = new ArrayList<Long>();
+        for (Integer seed : readRanges(values, "seeds")) {
+            seeds.add((long) seed);
+        }
+
+        schedulingInterval = readDouble(values, "scheduling.interval");
+        schedulingMode = values.getProperty("scheduling.mode").trim();
+        simulationLimit = readDouble(values, "simulation.limit");
+        consolidation = readBoolean(values, "consolidation.enabled");
+        consolidationUpperThreshold = readDouble(values, "consolidation.upperThreshold");
+        consolidationLowerThreshold = readDouble(values, "consolidation.lowerThreshold");
+        consolidationSafety = readDouble(values, "consolidation.safety");
+        consolidationHostsPerRound = readInts(values, "consolidation.hostsPerRound", 1)[0];
+        batchPlacement = readBoolean(values, "placement.batch");
+
+        hostMips = readInts(values, "host.mips", 0);
+        int hostTypes = hostMips.length;
+        hostPes = readInts(values, "host.pes", hostTypes);
+        hostRam = readInts(values, "host.ram", hostTypes);
+        hostBw = readLongs(values, "host.bw", hostTypes);
+        hostStorage = readLongs(values, "host.storage", hostTypes);
+        hostPower = readPowerModels(values, "host.power", hostTypes);
+
+        vmMips = readInts(values, "vm.mips", 0);
+        int vmTypes = vmMips.length;
+        vmPes = readInts(values, "vm.pes", vmTypes);
+        vmRam = readInts(values, "vm.ram", vmTypes);
+        vmBw = readLongs(values, "vm.bw", vmTypes);
+        vmSize = readLongs(values, "vm.size", vmTypes);
+
+        cloudletLength = readLongs(values, "cloudlet.length", 1)[0];
+        cloudletPes = readInts(values, "cloudlet.pes", 1)[0];
+        cloudletFileSize = readLongs(values, "cloudlet.fileSize", 1)[0];
+        cloudletOutputSize = readLongs(values, "cloudlet.outputSize", 1)[0];
+        cloudletUtilization = values.getProperty("cloudlet.utilization").trim();
+        cloudletTraces = values.getProperty("cloudlet.traces").trim();
+
+        samplingChoices = readInts(values, "sampling.choices", 1)[0];
+        samplingScore = values.getProperty("sampling.score").trim();
+
+        hostsPerRack = readInts(values, "topology.hostsPerRack", 1)[0];
+        racksPerPod = readInts(values, "topology.racksPerPod", 1)[0];
+
+        checkConsistency = readBoolean(values, "check.consistency");
+    }
+
+    private void validate() {
+        if (schedulingInterval <= 0) {
+            errors.add("scheduling.interval: must be positive");
+        }
+        if (!schedulingMode.equals("interval") && !schedulingMode.equals("event")) {
+            errors.add("scheduling.mode: expected interval or event, got " + schedulingMode);
+        }
+        if (simulationLimit <= 0) {
+            errors.add("simulation.limit: must be positive");
+        }
+        if (consolidationUpperThreshold <= 0 || consolidationUpperThreshold > 1) {
+            errors.add("consolidation.upperThreshold: expected a value in (0, 1], got " + consolidationUpperThreshold);
+        }
+        if (consolidationLowerThreshold < 0 || consolidationLowerThreshold >= consolidationUpperThreshold) {
+            errors.add("consolidation.lowerThreshold: expected a value from 0 to below the upper threshold, got "
+                    + consolidationLowerThreshold);
+        }
+        if (consolidationSafety < 0) {
+            errors.add("consolidation.safety: must not be negative");
+        }
+        if (cloudletUtilization.equals("trace")) {
+            if (cloudletTraces.isEmpty()) {
+                errors.add("cloudlet.traces: required when cloudlet.utilization is trace");
+            } else {
+                try {
+                    TraceStore.open(cloudletTraces);
+                } catch (IOException e) {
+                    errors.add("cloudlet.traces: " + e.getMessage());
+                }
+            }
+        } else if (!cloudletUtilization.equals("stochastic") && !cloudletUtilization.equals("full")) {
+            errors.add("cloudlet.utilization: expected stochastic, full or trace, got " + cloudletUtilization);
+        }
+        if (!SampledAllocationPolicy.SCORES.contains(samplingScore)) {
+            errors.add("sampling.score: expected one of " + SampledAllocationPolicy.SCORES + ", got " + samplingScore);
+        }
+        if (!errors.isEmpty()) {
+            return;
+        }
+        for (int vmType = 0; vmType < vmMips.length; vmType++) {
+            boolean fits = false;
+            for (int hostType = 0; hostType < hostMips.length && !fits; hostType++) {
+                fits = vmPes[vmType] <= hostPes[hostType]
+                        && vmMips[vmType] <= hostMips[hostType]
+                        && vmRam[vmType] <= hostRam[hostType]
+                        && vmBw[vmType] <= hostBw[hostType]
+                        && vmSize[vmType] <= hostStorage[hostType];
+            }
+            if (!fits) {
+                errors.add("vm type " + vmType + " does not fit in any host type");
+            }
+        }
+    }
+
+    private static String[] split(Properties values, String key) {
+        String[] items = values.getProperty(key).split(",");
+        for (int i = 0; i < items.length; i++) {
+            items[i] = items[i].trim();
+        }
+        return items;
+    }
+
+    /**
+     * Reads a list of positive integers and ranges such as 1-10.
+     */
+    private List<Integer> readRanges(Properties values, String key) {
+        try {
+            List<Integer> list = parseRanges(values.getProperty(key));
+            for (int value : list) {
+                if (value <= 0 && !key.equals("seeds")) {
+                    errors.add(key + ": invalid value " + value);
+                }
+            }
+            return list;
+        } catch (NumberFormatException e) {
+            errors.add(key + ": not a list of integers: " + values.getProperty(key));
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Parses a comma separated list of integers and ranges such as 1-10.
+     *
+     * @param value the list
+     * @return the integers, in order
+     * @throws NumberFormatException if an item is not an integer or a range
+     */
+    public static List<Integer> parseRanges(String value) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (String item : value.split(",")) {
+            item = item.trim();
+            int dash = item.indexOf('-', 1);
+            if (dash < 0) {
+                list.add(Integer.parseInt(item));
+            } else {
+                int from = Integer.parseInt(item.substring(0, dash));
+                int to = Integer.parseInt(item.substring(dash + 1));
+                for (int i = from; i <= to; i++) {
+                    list.add(i);
+                }
+            }
+        }
+        return list;
+    }
+
+    private boolean readBoolean(Properties values, String key) {
+        String value = values.getProperty(key).trim();
+        if (!value.equals("true") && !value.equals("false")) {
+            errors.add(key + ": expected true or false, got " + value);
+        }
+        return value.equals("true");
+    }
+
+    private double readDouble(Properties values, String key) {
+        try {
+            return Double.parseDouble(values.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            errors.add(key + ": not a number: " + values.getProperty(key));
+            return 0;
+        }
+    }
+
+    /**
+     * Reads one positive value per type; a single value applies to every
+     * type. With {@code types} 0 the list defines the number of types.
+     */
+    private int[] readInts(Properties values, String key, int types) {
+        long[] longs = readLongs(values, key, types);
+        int[] ints = new int[longs.length];
+        for (int i = 0; i < longs.length; i++) {
+            if (longs[i] > Integer.MAX_VALUE) {
+                errors.add(key + ": value too large: " + longs[i]);
+            }
+            ints[i] = (int) longs[i];
+        }
+        return ints;
+    }
+
+    private long[] readLongs(Properties values, String key, int types) {
+        String[] items = split(values, key);
+        int count = types == 0 ? items.length : types;
+        if (items.length != 1 && items.length != count) {
+            errors.add(key + ": expected 1 or " + count + " values, got " + items.length);
+            return new long[count];
+        }
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            String item = items[items.length == 1 ? 0 : i];
+            try {
+                result[i] = Long.parseLong(item);
+                if (result[i] <= 0) {
+                    errors.add(key + ": must be positive, got " + item);
+                }
+            } catch (NumberFormatException e) {
+                errors.add(key + ": not an integer: " + item);
+            }
+        }
+        return result;
+    }
+
+    private PowerModel[] readPowerModels(Properties values, String key, int types) {
+        String[] items = split(values, key);
+        if (items.length != 1 && items.length != types) {
+            errors.add(key + ": expected 1 or " + types + " values, got " + items.length);
+            return new PowerModel[types];
+        }
+        PowerModel[] models = new PowerModel[items.length];
+        for (int i = 0; i < items.length; i++) {
+            String name = items[i];
+            String className = name.indexOf('.') < 0 ? POWER_MODEL_PACKAGE + name : name;
+            try {
+                models[i] = (PowerModel) Class.forName(className).getConstructor().newInstance();
+            } catch (ClassCastException e) {
+                errors.add(key + ": " + name + " is not a PowerModel");
+            } catch (ReflectiveOperationException e) {
+                errors.add(key + ": cannot create power model " + name + " (" + e + ")");
+            }
+        }
+        PowerModel[] result = new PowerModel[types];
+        for (int i = 0; i < types; i++) {
+            result[i] = models[items.length == 1 ? 0 : i];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the file the configuration was read from.
+     *
+     * @return the absolute file; $null for the default configuration
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public List<String> getPolicies() {
+        return Collections.unmodifiableList(policies);
+    }
+
+    public List<Integer> getHosts() {
+        return Collections.unmodifiableList(hosts);
+    }
+
+    public List<Integer> getVms() {
+        return Collections.unmodifiableList(vms);
+    }
+
+    public List<Long> getSeeds() {
+        return Collections.unmodifiableList(seeds);
+    }
+
+    public double getSchedulingInterval() {
+        return schedulingInterval;
+    }
+
+    /**
+     * Checks whether the datacenter updates only the hosts that changed
+     * ({@link EventDrivenPowerDatacenter}) instead of every host on each
+     * scheduling interval.
+     *
+     * @return $true if scheduling.mode is event
+     */
+    public boolean isEventDriven() {
+        return schedulingMode.equals("event");
+    }
+
+    public double getSimulationLimit() {
+        return simulationLimit;
+    }
+
+    /**
+     * Checks whether the datacenter consolidates the VMs with migrations on
+     * every scheduling interval, see {@link VmConsolidation}.
+     *
+     * @return $true if consolidation.enabled is true
+     */
+    public boolean isConsolidation() {
+        return consolidation;
+    }
+
+    /**
+     * Gets the static upper cpu utilization threshold of the consolidation,
+     * used by the hosts without enough utilization history.
+     *
+     * @return the value of consolidation.upperThreshold, from 0 to 1
+     */
+    public double getConsolidationUpperThreshold() {
+        return consolidationUpperThreshold;
+    }
+
+    /**
+     * Gets the cpu utilization below which the consolidation drains a host.
+     *
+     * @return the value of consolidation.lowerThreshold, from 0 to 1
+     */
+    public double getConsolidationLowerThreshold() {
+        return consolidationLowerThreshold;
+    }
+
+    /**
+     * Gets the safety parameter s of the consolidation threshold 1 - s * MAD.
+     *
+     * @return the value of consolidation.safety; 0 for static thresholds only
+     */
+    public double getConsolidationSafety() {
+        return consolidationSafety;
+    }
+
+    /**
+     * Gets the maximum number of hosts relieved or drained in a
+     * consolidation round.
+     *
+     * @return the value of consolidation.hostsPerRound
+     */
+    public int getConsolidationHostsPerRound() {
+        return consolidationHostsPerRound;
+    }
+
+    /**
+     * Checks whether the VMs are placed all at once, sorted by decreasing
+     * size, before they are submitted, see
+     * {@link BaseAllocationPolicy#placeAll(java.util.List)}.
+     *
+     * @return $true if placement.batch is true
+     */
+    public boolean isBatchPlacement() {
+        return batchPlacement;
+    }
+
+    public int getHostTypes() {
+        return hostMips.length;
+    }
+
+    public int getHostMips(int type) {
+        return hostMips[type];
+    }
+
+    public int getHostPes(int type) {
+        return hostPes[type];
+    }
+
+    public int getHostRam(int type) {
+        return hostRam[type];
+    }
+
+    public long getHostBw(int type) {
+        return hostBw[type];
+    }
+
+    public long getHostStorage(int type) {
+        return hostStorage[type];
+    }
+
+    /**
+     * Gets the power model of a host type. Power models keep no state, so
+     * the instance is shared by every host of the type.
+     *
+     * @param type the host type
+     * @return the power model
+     */
+    public PowerModel getHostPower(int type) {
+        return hostPower[type];
+    }
+
+    public int getVmTypes() {
+        return vmMips.length;
+    }
+
+    public int getVmMips(int type) {
+        return vmMips[type];
+    }
+
+    public int getVmPes(int type) {
+        return vmPes[type];
+    }
+
+    public int getVmRam(int type) {
+        return vmRam[type];
+    }
+
+    public long getVmBw(int type) {
+        return vmBw[type];
+    }
+
+    public long getVmSize(int type) {
+        return vmSize[type];
+    }
+
+    public long getCloudletLength() {
+        return cloudletLength;
+    }
+
+    public int getCloudletPes() {
+        return cloudletPes;
+    }
+
+    public long getCloudletFileSize() {
+        return cloudletFileSize;
+    }
+
+    public long getCloudletOutputSize() {
+        return cloudletOutputSize;
+    }
+
+    /**
+     * Gets the utilization model of the cloudlets.
+     *
+     * @return stochastic, full or trace
+     */
+    public String getCloudletUtilization() {
+        return cloudletUtilization;
+    }
+
+    /**
+     * Gets the traces replayed by the cloudlets when the utilization model
+     * is trace.
+     *
+     * @return a directory of PlanetLab traces or a binary trace file, see
+     * {@link TraceStore#open(String)}; empty if not set
+     */
+    public String getCloudletTraces() {
+        return cloudletTraces;
+    }
+
+    /**
+     * Gets the number of suitable hosts the sampled policy draws per VM.
+     *
+     * @return d, at least 1
+     */
+    public int getSamplingChoices() {
+        return samplingChoices;
+    }
+
+    /**
+     * Gets the score the sampled policy uses to choose among the drawn hosts.
+     *
+     * @return one of {@link SampledAllocationPolicy#SCORES}
+     */
+    public String getSamplingScore() {
+        return samplingScore;
+    }
+
+    /**
+     * Gets the number of hosts in a rack of the topology.
+     *
+     * @return the hosts per rack
+     */
+    public int getHostsPerRack() {
+        return hostsPerRack;
+    }
+
+    /**
+     * Gets the number of racks in a pod of the topology.
+     *
+     * @return the racks per pod
+     */
+    public int getRacksPerPod() {
+        return racksPerPod;
+    }
+
+    /**
+     * Checks whether the policies verify their bookkeeping against the hosts
+     * after every allocation and deallocation, see
+     * {@link BaseAllocationPolicy#setCheckConsistency(boolean)}.
+     *
+     * @return $true if check.consistency is true
+     */
+    public boolean isCheckConsistency() {
+        return checkConsistency;
+    }
+
+}
@@ -0,0 +1,177 @@
+
+import org.cloudbus.cloudsim.power.PowerDatacenter;
+
+/**
+ * Métricas de uma execução de um {@link Scenario}: energia consumida,
+ * migrações, VMs criadas, cloudlets devolvidos, tempo simulado, tempo real e
+ * as métricas de SLA ({@link SlaMetrics}).
+ *
+ * Viaja entre o processo do cenário e o executor de experimentos como uma
+ * linha de texto, ver {@link #toLine()} e {@link #parse(String)}.
+ */
+public class ScenarioResult {
+
+    /**
+     * Prefixo da linha com o resultado na saída de um cenário.
+     */
+    public static final String PREFIX = "RESULT";
+
+    private static final String DELIMITER = "\t";
+
+    private final Scenario scenario;
+
+    private final double energy;
+
+    private final int migrations;
+
+    private final int vmsCreated;
+
+    private final int cloudletsReceived;
+
+    private final double simulationTime;
+
+    private final long wallTimeMillis;
+
+    private final SlaMetrics slaMetrics;
+
+    /**
+     * Datacenter simulado; só existe no processo que rodou o cenário.
+     */
+    private PowerDatacenter datacenter;
+
+    public ScenarioResult(Scenario scenario, double energy, int migrations, int vmsCreated,
+            int cloudletsReceived, double simulationTime, long wallTimeMillis, SlaMetrics slaMetrics) {
+        this.scenario = scenario;
+        this.energy = energy;
+        this.migrations = migrations;
+        this.vmsCreated = vmsCreated;
+        this.cloudletsReceived = cloudletsReceived;
+        this.simulationTime = simulationTime;
+        this.wallTimeMillis = wallTimeMillis;
+        this.slaMetrics = slaMetrics;
+    }
+
+    /**
+     * Writes the result as one line, starting with {@link #PREFIX}.
+     *
+     * @return the line
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder(PREFIX);
+        for (String arg : scenario.toArgs()) {
+            line.append(DELIMITER).append(arg);
+        }
+        line.append(DELIMITER).append(energy)
+                .append(DELIMITER).append(migrations)
+                .append(DELIMITER).append(vmsCreated)
+                .append(DELIMITER).append(cloudletsReceived)
+                .append(DELIMITER).append(simulationTime)
+                .append(DELIMITER).append(wallTimeMillis);
+        for (double value : slaMetrics.getValues()) {
+            line.append(DELIMITER).append(value);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Reads a result written by {@link #toLine()}, with the configuration of
+     * this JVM.
+     *
+     * @param line the line
+     * @return the result; $null if the line is not a result line
+     */
+    public static ScenarioResult parse(String line) {
+        return parse(line, ScenarioConfig.getCurrent());
+    }
+
+    /**
+     * Reads a result written by {@link #toLine()} by a scenario run with the
+     * given configuration.
+     *
+     * @param line the line
+     * @param config the configuration of the scenario
+     * @return the result; $null if the line is not a result line
+     */
+    public static ScenarioResult parse(String line, ScenarioConfig config) {
+        if (!line.startsWith(PREFIX + DELIMITER)) {
+            return null;
+        }
+        String[] fields = line.split(DELIMITER);
+        Scenario scenario = Scenario.fromArgs(new String[]{fields[1], fields[2], fields[3], fields[4]}, config);
+        double[] sla = new double[SlaMetrics.COLUMNS.length];
+        for (int i = 0; i < sla.length; i++) {
+            sla[i] = Double.parseDouble(fields[11 + i]);
+        }
+        return new ScenarioResult(
+                scenario,
+                Double.parseDouble(fields[5]),
+                Integer.parseInt(fields[6]),
+                Integer.parseInt(fields[7]),
+                Integer.parseInt(fields[8]),
+                Double.parseDouble(fields[9]),
+                Long.parseLong(fields[10]),
+                new SlaMetrics(sla));
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * Gets the energy consumed by the datacenter.
+     *
+     * @return the energy, in kWh
+     */
+    public double getEnergy() {
+        return energy;
+    }
+
+    public int getMigrations() {
+        return migrations;
+    }
+
+    public int getVmsCreated() {
+        return vmsCreated;
+    }
+
+    public int getCloudletsReceived() {
+        return cloudletsReceived;
+    }
+
+    /**
+     * Gets the clock of the simulation when it ended.
+     *
+     * @return the simulation time, in seconds
+     */
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    public long getWallTimeMillis() {
+        return wallTimeMillis;
+    }
+
+    public SlaMetrics getSlaMetrics() {
+        return slaMetrics;
+    }
+
+    /**
+     * Gets the simulated datacenter.
+     *
+     * @return the datacenter; $null if the result was read from another
+     * process with {@link #parse(String)}
+     */
+    public PowerDatacenter getDatacenter() {
+        return datacenter;
+    }
+
+    /**
+     * Sets the simulated datacenter.
+     *
+     * @param datacenter the datacenter
+     */
+    public void setDatacenter(PowerDatacenter datacenter) {
+        this.datacenter = datacenter;
+    }
+
+}
@@ -0,0 +1,66 @@
+
+import java.util.BitSet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Escolhe o primeiro host adequado na ordem dada por um {@link HostScorer}.
+ *
+ * As notas ficam em um {@link HostCapacityIndex}, atualizado apenas para o
+ * host que mudou, de forma que a lista de hosts nunca é reordenada. Os hosts
+ * fora do conjunto de candidatos da VM são pulados sem passar pelo filtro da
+ * política.
+ */
+public class ScoredHostSelector implements HostSelector {
+
+    private final HostScorer scorer;
+
+    private BaseAllocationPolicy policy;
+
+    private HostCapacityIndex index;
+
+    public ScoredHostSelector(HostScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        AllocationTable table = policy.getAllocationTable();
+        int[] scores = new int[table.getHostCount()];
+        for (int slot = 0; slot < scores.length; slot++) {
+            scores[slot] = scorer.score(table, slot);
+        }
+        this.index = new HostCapacityIndex(scores);
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        int min = scorer.minScore(vm);
+        boolean descending = scorer.isDescending();
+        BitSet candidates = policy.getCandidateHosts(vm);
+        int slot = descending ? index.descendingFirst(min) : index.ascendingFirst(min);
+        while (slot >= 0) {
+            if ((candidates == null || candidates.get(slot)) && policy.isSuitableForVm(slot, vm)) {
+                return policy.getAllocationTable().getHostAt(slot);
+            }
+            slot = descending ? index.descendingNext(slot, min) : index.ascendingNext(slot);
+        }
+        return null;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        index.set(slot, scorer.score(policy.getAllocationTable(), slot));
+    }
+
+    /**
+     * Gets the scorer.
+     *
+     * @return the scorer
+     */
+    public HostScorer getScorer() {
+        return scorer;
+    }
+
+}
@@ -0,0 +1,259 @@
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.HostDynamicWorkload;
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmStateHistoryEntry;
+import org.cloudbus.cloudsim.util.MathUtil;
+
+/**
+ * Métricas de SLA de uma execução, calculadas a partir do histórico de estados
+ * dos hosts e das VMs com as mesmas fórmulas do {@code Helper.printResults}
+ * dos exemplos de energia do CloudSim, que só as imprime:
+ * <ul>
+ * <li>SLATAH: fração do tempo ativo dos hosts em que a Mips alocada ficou
+ * abaixo da pedida;</li>
+ * <li>PDM: fração da Mips pedida pelas VMs que deixou de ser alocada por
+ * causa das migrações;</li>
+ * <li>SLA: SLATAH × PDM;</li>
+ * <li>violação de SLA: fração da Mips pedida pelas VMs que não foi
+ * alocada;</li>
+ * <li>desligamentos de hosts e o tempo de cada host ligado antes de ser
+ * desligado;</li>
+ * <li>o tempo de cada VM entre migrações;</li>
+ * <li>o tempo de execução de cada rodada de consolidação
+ * ({@link VmConsolidation}) na seleção das VMs e na escolha dos destinos.</li>
+ * </ul>
+ * As médias e os desvios padrão de listas vazias ficam como NaN, como no
+ * {@code Helper}.
+ */
+public class SlaMetrics {
+
+    /**
+     * Nomes das colunas dos valores de {@link #getValues()}, na mesma ordem.
+     */
+    public static final String[] COLUMNS = {
+        "slatah", "pdm", "sla", "sla_violation", "host_shutdowns",
+        "time_before_host_shutdown_mean", "time_before_host_shutdown_stdev",
+        "time_before_vm_migration_mean", "time_before_vm_migration_stdev",
+        "vm_selection_time_ms_mean", "vm_selection_time_ms_stdev",
+        "vm_reallocation_time_ms_mean", "vm_reallocation_time_ms_stdev"};
+
+    private final double[] values;
+
+    /**
+     * Creates the metrics from the values of {@link #getValues()}.
+     *
+     * @param values the values, in the order of {@link #COLUMNS}
+     * @throws IllegalArgumentException if the number of values is wrong
+     */
+    public SlaMetrics(double[] values) {
+        if (values.length != COLUMNS.length) {
+            throw new IllegalArgumentException("Expected " + COLUMNS.length + " values, got " + values.length);
+        }
+        this.values = values.clone();
+    }
+
+    /**
+     * Computes the metrics of a finished simulation.
+     *
+     * @param hosts the hosts of the datacenter
+     * @param vms the vms
+     * @param consolidation the consolidation engine of the policy
+     * @return the metrics
+     */
+    public static SlaMetrics compute(List<? extends HostDynamicWorkload> hosts, List<? extends Vm> vms,
+            VmConsolidation consolidation) {
+        double slaViolationTime = 0;
+        double activeTime = 0;
+        List<Double> timesBeforeHostShutdown = new ArrayList<Double>();
+        for (HostDynamicWorkload host : hosts) {
+            double previousTime = -1;
+            double previousAllocated = 0;
+            double previousRequested = 0;
+            boolean previousIsActive = true;
+            double lastTimeSwitchedOn = 0;
+            for (HostStateHistoryEntry entry : host.getStateHistory()) {
+                if (previousTime != -1 && previousIsActive) {
+                    double timeDiff = entry.getTime() - previousTime;
+                    activeTime += timeDiff;
+                    if (previousAllocated < previousRequested) {
+                        slaViolationTime += timeDiff;
+                    }
+                }
+                if (previousIsActive && !entry.isActive()) {
+                    timesBeforeHostShutdown.add(entry.getTime() - lastTimeSwitchedOn);
+                }
+                if (!previousIsActive && entry.isActive()) {
+                    lastTimeSwitchedOn = entry.getTime();
+                }
+                previousAllocated = entry.getAllocatedMips();
+                previousRequested = entry.getRequestedMips();
+                previousTime = entry.getTime();
+                previousIsActive = entry.isActive();
+            }
+        }
+
+        double totalAllocated = 0;
+        double totalRequested = 0;
+        double underAllocatedDueToMigration = 0;
+        List<Double> timesBeforeVmMigration = new ArrayList<Double>();
+        for (Vm vm : vms) {
+            double previousTime = -1;
+            double previousAllocated = 0;
+            double previousRequested = 0;
+            boolean previousIsInMigration = false;
+            double lastTimeMigrationFinished = 0;
+            for (VmStateHistoryEntry entry : vm.getStateHistory()) {
+                if (previousTime != -1) {
+                    double timeDiff = entry.getTime() - previousTime;
+                    totalAllocated += previousAllocated * timeDiff;
+                    totalRequested += previousRequested * timeDiff;
+                    if (previousAllocated < previousRequested && previousIsInMigration) {
+                        underAllocatedDueToMigration += (previousRequested - previousAllocated) * timeDiff;
+                    }
+                }
+                if (previousIsInMigration && !entry.isInMigration()) {
+                    timesBeforeVmMigration.add(entry.getTime() - lastTimeMigrationFinished);
+                    lastTimeMigrationFinished = entry.getTime();
+                }
+                previousAllocated = entry.getAllocatedMips();
+                previousRequested = entry.getRequestedMips();
+                previousTime = entry.getTime();
+                previousIsInMigration = entry.isInMigration();
+            }
+        }
+
+        double slaTimePerActiveHost = slaViolationTime / activeTime;
+        double degradationDueToMigration = underAllocatedDueToMigration / totalRequested;
+        return new SlaMetrics(new double[]{
+            slaTimePerActiveHost,
+            degradationDueToMigration,
+            slaTimePerActiveHost * degradationDueToMigration,
+            (totalRequested - totalAllocated) / totalRequested,
+            timesBeforeHostShutdown.size(),
+            mean(timesBeforeHostShutdown),
+            standardDeviation(timesBeforeHostShutdown),
+            mean(timesBeforeVmMigration),
+            standardDeviation(timesBeforeVmMigration),
+            mean(consolidation.getVmSelectionTimes()),
+            standardDeviation(consolidation.getVmSelectionTimes()),
+            mean(consolidation.getVmReallocationTimes()),
+            standardDeviation(consolidation.getVmReallocationTimes())});
+    }
+
+    private static double mean(List<Double> values) {
+        return values.isEmpty() ? Double.NaN : MathUtil.mean(values);
+    }
+
+    private static double standardDeviation(List<Double> values) {
+        return values.isEmpty() ? Double.NaN : MathUtil.stDev(values);
+    }
+
+    /**
+     * Gets the metrics as an array, in the order of {@link #COLUMNS}.
+     *
+     * @return a copy of the values
+     */
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Gets the SLA time per active host (SLATAH).
+     *
+     * @return the fraction of the active time of the hosts with less mips
+     * allocated than requested
+     */
+    public double getSlaTimePerActiveHost() {
+        return values[0];
+    }
+
+    /**
+     * Gets the performance degradation due to migrations (PDM).
+     *
+     * @return the fraction of the requested mips not allocated because of
+     * migrations
+     */
+    public double getPerformanceDegradationDueToMigration() {
+        return values[1];
+    }
+
+    /**
+     * Gets the SLA metric, SLATAH × PDM.
+     *
+     * @return the SLA metric
+     */
+    public double getSla() {
+        return values[2];
+    }
+
+    /**
+     * Gets the overall SLA violation.
+     *
+     * @return the fraction of the requested mips that was not allocated
+     */
+    public double getSlaViolation() {
+        return values[3];
+    }
+
+    public int getHostShutdowns() {
+        return (int) values[4];
+    }
+
+    /**
+     * Gets the mean time a host stayed on before being shut down.
+     *
+     * @return the mean time, in seconds; NaN without shutdowns
+     */
+    public double getMeanTimeBeforeHostShutdown() {
+        return values[5];
+    }
+
+    public double getStDevTimeBeforeHostShutdown() {
+        return values[6];
+    }
+
+    /**
+     * Gets the mean time between the migrations of a VM.
+     *
+     * @return the mean time, in seconds; NaN without migrations
+     */
+    public double getMeanTimeBeforeVmMigration() {
+        return values[7];
+    }
+
+    public double getStDevTimeBeforeVmMigration() {
+        return values[8];
+    }
+
+    /**
+     * Gets the mean time a consolidation round spent selecting the VMs to
+     * migrate.
+     *
+     * @return the mean time, in milliseconds; NaN without rounds
+     */
+    public double getMeanVmSelectionTime() {
+        return values[9];
+    }
+
+    public double getStDevVmSelectionTime() {
+        return values[10];
+    }
+
+    /**
+     * Gets the mean time a consolidation round spent choosing the targets of
+     * the migrations.
+     *
+     * @return the mean time, in milliseconds; NaN without rounds
+     */
+    public double getMeanVmReallocationTime() {
+        return values[11];
+    }
+
+    public double getStDevVmReallocationTime() {
+        return values[12];
+    }
+
+}
@@ -0,0 +1,59 @@
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
+
+/**
+ * Broker que envia cada cloudlet devolvido para um {@link ResultSink} assim
+ * que ele chega, em vez de guardá-lo na lista de cloudlets recebidos; só a
+ * contagem é mantida.
+ *
+ * Uma VM que não pôde ser criada interrompe a simulação com uma exceção, em
+ * vez do {@code System.exit(0)} do {@link PowerDatacenterBroker}, que no modo
+ * isolado do {@link ExperimentRunner} encerraria a JVM do próprio runner.
+ */
+public class StreamingDatacenterBroker extends PowerDatacenterBroker {
+
+    private final ResultSink results;
+
+    private int cloudletsReceived;
+
+    public StreamingDatacenterBroker(String name, ResultSink results) throws Exception {
+        super(name);
+        this.results = results;
+    }
+
+    /**
+     * Processes the acknowledgement of a VM creation.
+     *
+     * @param ev the event
+     * @throws IllegalStateException if the VM could not be created
+     */
+    @Override
+    protected void processVmCreate(SimEvent ev) {
+        int[] data = (int[]) ev.getData();
+        if (data[2] != CloudSimTags.TRUE) {
+            throw new IllegalStateException("Creation of VM #" + data[1] + " failed in Datacenter #" + data[0]);
+        }
+        super.processVmCreate(ev);
+    }
+
+    @Override
+    protected void processCloudletReturn(SimEvent ev) {
+        super.processCloudletReturn(ev);
+        Cloudlet cloudlet = getCloudletReceivedList().remove(getCloudletReceivedList().size() - 1);
+        results.cloudletReturned(cloudlet);
+        cloudletsReceived++;
+    }
+
+    /**
+     * Gets the number of cloudlets returned to the broker.
+     *
+     * @return the number of cloudlets received
+     */
+    public int getCloudletsReceived() {
+        return cloudletsReceived;
+    }
+
+}
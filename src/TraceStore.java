@@ -0,0 +1,327 @@
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Traces de utilização de CPU no formato do PlanetLab (um arquivo texto por
+ * VM, uma porcentagem inteira por linha, uma amostra a cada 5 minutos),
+ * guardados em um único arquivo binário mapeado em memória.
+ *
+ * Cada amostra ocupa um byte e as amostras de um trace ficam contíguas, então
+ * abrir milhares de traces é só mapear o arquivo: nada é lido nem convertido
+ * até uma amostra ser pedida, e as páginas ficam no cache do sistema
+ * operacional, compartilhadas entre as execuções. Os stores já abertos são
+ * reaproveitados pelas execuções seguintes da mesma JVM.
+ *
+ * O binário gerado de um diretório guarda uma assinatura do nome, do tamanho
+ * e da data de cada arquivo de trace, e é gerado de novo quando a assinatura
+ * do diretório muda, inclusive quando um arquivo é editado sem mudar a data
+ * do diretório. A conversão escreve em um arquivo temporário próprio do
+ * processo e o renomeia atomicamente, então JVMs que convertem o mesmo
+ * diretório ao mesmo tempo não se atrapalham e nunca veem um binário pela
+ * metade.
+ *
+ * Formato, big-endian:
+ * <pre>
+ * int magic ('TCCT'), int versão (2), int número de traces, int amostras por
+ * trace, int intervalo entre amostras em segundos, long assinatura dos
+ * arquivos de origem (0 se desconhecida)
+ * por trace, as amostras, um byte cada (0 a 100)
+ * </pre>
+ */
+public class TraceStore {
+
+    public static final int MAGIC = 0x54434354;
+
+    public static final int VERSION = 2;
+
+    /**
+     * Nome do arquivo binário gerado dentro de um diretório de traces.
+     */
+    public static final String BINARY_NAME = "traces.bin";
+
+    /**
+     * Intervalo entre as amostras dos traces do PlanetLab, em segundos.
+     */
+    public static final int PLANETLAB_INTERVAL = 300;
+
+    private static final int HEADER_SIZE = 5 * Integer.SIZE / 8 + Long.SIZE / 8;
+
+    private static final Map<String, TraceStore> OPEN = new HashMap<String, TraceStore>();
+
+    private final MappedByteBuffer data;
+
+    private final int traces;
+
+    private final int samples;
+
+    private final int interval;
+
+    private final long fingerprint;
+
+    private TraceStore(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a trace file");
+        }
+        traces = data.getInt(8);
+        samples = data.getInt(12);
+        interval = data.getInt(16);
+        fingerprint = data.getLong(20);
+        if (traces <= 0 || samples <= 0 || interval <= 0
+                || data.capacity() != HEADER_SIZE + (long) traces * samples) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Opens the traces of a path, reusing a store already open in this JVM.
+     * A directory of PlanetLab text files is converted to {@link #BINARY_NAME}
+     * inside it on first use, and again whenever a file is added, removed,
+     * renamed or changes size or modification time.
+     *
+     * @param path a directory of text traces or a binary trace file
+     * @return the store
+     * @throws IOException if the traces cannot be read or converted
+     */
+    public static synchronized TraceStore open(String path) throws IOException {
+        File file = new File(path).getAbsoluteFile();
+        if (!file.isDirectory()) {
+            TraceStore store = OPEN.get(file.getPath());
+            if (store == null) {
+                store = new TraceStore(file);
+                OPEN.put(file.getPath(), store);
+            }
+            return store;
+        }
+        File binary = new File(file, BINARY_NAME);
+        long fingerprint = fingerprint(listTraces(file));
+        TraceStore store = OPEN.get(binary.getPath());
+        if (store == null || store.fingerprint != fingerprint) {
+            if (readFingerprint(binary) != fingerprint) {
+                convert(file, binary, PLANETLAB_INTERVAL);
+            }
+            store = new TraceStore(binary);
+            OPEN.put(binary.getPath(), store);
+        }
+        return store;
+    }
+
+    /**
+     * Lists the text traces of a directory, in name order.
+     */
+    private static File[] listTraces(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        Arrays.sort(files);
+        int count = 0;
+        for (File file : files) {
+            if (file.isFile() && !file.getName().startsWith(BINARY_NAME) && !file.getName().startsWith(".")) {
+                files[count++] = file;
+            }
+        }
+        if (count == 0) {
+            throw new IOException("No traces in " + directory);
+        }
+        return Arrays.copyOf(files, count);
+    }
+
+    /**
+     * Signature of the name, size and modification time of each trace file.
+     */
+    private static long fingerprint(File[] files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer attributes = ByteBuffer.allocate(2 * Long.SIZE / 8);
+        for (File file : files) {
+            digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+            attributes.clear();
+            attributes.putLong(file.length()).putLong(file.lastModified());
+            digest.update(attributes.array());
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    /**
+     * Reads the source signature of a binary trace file.
+     *
+     * @return the signature; -1 if the file is missing or is not a trace file
+     * of this version, which forces a new conversion
+     */
+    private static long readFingerprint(File binary) {
+        if (!binary.isFile()) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try {
+            FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.READ);
+            try {
+                int read = 0;
+                while (header.hasRemaining() && read >= 0) {
+                    read = channel.read(header);
+                }
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return -1;
+        }
+        return header.getLong(20);
+    }
+
+    /**
+     * Converts a directory of text traces, one integer percentage per line,
+     * to the binary format. The files are taken in name order; every trace
+     * gets the number of samples of the first one, padding shorter traces
+     * with their last value.
+     *
+     * @param directory the directory of text traces
+     * @param output the binary file
+     * @param interval the interval between samples, in seconds
+     * @throws IOException if a trace cannot be read or has invalid values
+     */
+    public static void convert(File directory, File output, int interval) throws IOException {
+        File[] files = listTraces(directory);
+        long fingerprint = fingerprint(files);
+        byte[] first = readTrace(files[0], -1);
+        int samples = first.length;
+        File temporary = File.createTempFile(output.getName() + ".", ".tmp", output.getAbsoluteFile().getParentFile());
+        try {
+            FileChannel channel = FileChannel.open(temporary.toPath(),
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(files.length).putInt(samples).putInt(interval)
+                        .putLong(fingerprint).flip();
+                write(channel, header);
+                write(channel, ByteBuffer.wrap(first));
+                for (int i = 1; i < files.length; i++) {
+                    write(channel, ByteBuffer.wrap(readTrace(files[i], samples)));
+                }
+            } finally {
+                channel.close();
+            }
+            Files.move(temporary.toPath(), output.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporary.delete();
+        }
+    }
+
+    /**
+     * Reads one text trace.
+     *
+     * @param samples the number of samples; -1 for as many as the file has
+     */
+    private static byte[] readTrace(File file, int samples) throws IOException {
+        byte[] trace = new byte[samples < 0 ? 288 : samples];
+        int size = 0;
+        BufferedReader input = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = input.readLine()) != null && (samples < 0 || size < samples)) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int value;
+                try {
+                    value = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ": not a percentage: " + line);
+                }
+                if (value < 0 || value > 100) {
+                    throw new IOException(file + ": not a percentage: " + line);
+                }
+                if (size == trace.length) {
+                    trace = Arrays.copyOf(trace, trace.length * 2);
+                }
+                trace[size++] = (byte) value;
+            }
+        } finally {
+            input.close();
+        }
+        if (size == 0) {
+            throw new IOException(file + " is empty");
+        }
+        if (samples < 0) {
+            return Arrays.copyOf(trace, size);
+        }
+        Arrays.fill(trace, size, samples, trace[size - 1]);
+        return trace;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of traces.
+     *
+     * @return the number of traces
+     */
+    public int getTraces() {
+        return traces;
+    }
+
+    /**
+     * Gets the number of samples of each trace.
+     *
+     * @return the number of samples
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the interval between samples.
+     *
+     * @return the interval, in seconds
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets one sample of a trace. Samples past the end of the trace repeat
+     * its last value.
+     *
+     * @param trace the trace index
+     * @param sample the sample index
+     * @return the utilization, from 0 to 1
+     */
+    public double getUtilization(int trace, int sample) {
+        int index = HEADER_SIZE + trace * samples + Math.min(sample, samples - 1);
+        return data.get(index) / 100.0;
+    }
+
+}
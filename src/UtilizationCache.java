@@ -0,0 +1,188 @@
+
+import java.util.Arrays;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostDynamicWorkload;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * Cache da utilização de CPU (em Mips) de cada host, no mesmo cálculo usado
+ * pelas políticas de Beloglazov: a soma dos Mips alocados às VMs do host, com
+ * as VMs que estão migrando para o host pesando 10 vezes mais.
+ *
+ * O valor de um host é atualizado incrementalmente quando uma VM é criada ou
+ * destruída pela política e recalculado, uma única vez, quando o host muda por
+ * fora da política: o relógio da simulação avançou (o datacenter realoca os
+ * Mips das VMs a cada atualização), uma migração começou ou terminou, ou a
+ * utilização registrada pelo próprio host mudou. Com isso a consulta custa
+ * O(1) no caso comum em vez de O(VMs²).
+ */
+public class UtilizationCache {
+
+    /**
+     * Peso extra de uma VM que está migrando para o host.
+     */
+    private static final double MIGRATION_OVERHEAD = 0.9 / 0.1;
+
+    private final AllocationTable table;
+
+    /**
+     * Utilização em Mips de cada host.
+     */
+    private final double[] mips;
+
+    /**
+     * Estado do host quando o valor foi calculado: relógio, número de VMs,
+     * número de VMs migrando para o host e utilização registrada pelo host.
+     */
+    private final double[] clock;
+    private final int[] vmCount;
+    private final int[] migratingCount;
+    private final double[] hostUtilization;
+
+    /**
+     * Quando ativo, cada consulta é conferida com o valor recalculado.
+     */
+    private boolean validate;
+
+    public UtilizationCache(AllocationTable table) {
+        int count = table.getHostCount();
+        this.table = table;
+        this.mips = new double[count];
+        this.clock = new double[count];
+        this.vmCount = new int[count];
+        this.migratingCount = new int[count];
+        this.hostUtilization = new double[count];
+        Arrays.fill(clock, Double.NaN);
+    }
+
+    /**
+     * Gets the cpu utilization of a host, in mips.
+     *
+     * @param slot the host slot
+     * @return the utilization in mips
+     * @throws IllegalStateException in validation mode, if the cached value
+     * differs from the recomputed one
+     */
+    public double getUtilizationOfCpuMips(int slot) {
+        Host host = table.getHostAt(slot);
+        if (!isFresh(slot, host)) {
+            mips[slot] = compute(host);
+            snapshot(slot, host);
+        } else if (isValidate()) {
+            double expected = compute(host);
+            if (Math.abs(expected - mips[slot]) > 1e-6) {
+                throw new IllegalStateException("Cached utilization of host #" + host.getId() + " is "
+                        + mips[slot] + " Mips but the host is using " + expected + " Mips");
+            }
+        }
+        return mips[slot];
+    }
+
+    /**
+     * Records that a VM has just been created in a host.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     */
+    public void vmCreated(int slot, Vm vm) {
+        Host host = table.getHostAt(slot);
+        vmCount[slot]++;
+        if (isFresh(slot, host)) {
+            mips[slot] += contribution(host, vm);
+        } else {
+            invalidate(slot);
+        }
+    }
+
+    /**
+     * Records that a VM is about to be destroyed in a host. Must be called
+     * before {@link Host#vmDestroy(Vm)}, while the host still knows how many
+     * mips the VM has.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     */
+    public void vmDestroying(int slot, Vm vm) {
+        Host host = table.getHostAt(slot);
+        if (isFresh(slot, host)) {
+            mips[slot] -= contribution(host, vm);
+            vmCount[slot]--;
+        } else {
+            invalidate(slot);
+        }
+    }
+
+    /**
+     * Forces the value of a host to be recomputed on the next query, e.g.
+     * when a VM starts migrating into it.
+     *
+     * @param slot the host slot
+     */
+    public void invalidate(int slot) {
+        clock[slot] = Double.NaN;
+    }
+
+    /**
+     * Computes the cpu utilization of a host by walking its VMs.
+     *
+     * @param host the host
+     * @return the utilization in mips
+     */
+    public static double compute(Host host) {
+        double hostUtilizationMips = 0;
+        for (Vm vm2 : host.getVmList()) {
+            if (host.getVmsMigratingIn().contains(vm2)) {
+                // calculate additional potential CPU usage of a migrating in VM
+                hostUtilizationMips += host.getTotalAllocatedMipsForVm(vm2) * MIGRATION_OVERHEAD;
+            }
+            hostUtilizationMips += host.getTotalAllocatedMipsForVm(vm2);
+        }
+        return hostUtilizationMips;
+    }
+
+    private static double contribution(Host host, Vm vm) {
+        double allocated = host.getTotalAllocatedMipsForVm(vm);
+        if (host.getVmsMigratingIn().contains(vm)) {
+            allocated += allocated * MIGRATION_OVERHEAD;
+        }
+        return allocated;
+    }
+
+    private boolean isFresh(int slot, Host host) {
+        return clock[slot] == CloudSim.clock()
+                && vmCount[slot] == host.getVmList().size()
+                && migratingCount[slot] == host.getVmsMigratingIn().size()
+                && hostUtilization[slot] == getHostUtilization(host);
+    }
+
+    private void snapshot(int slot, Host host) {
+        clock[slot] = CloudSim.clock();
+        vmCount[slot] = host.getVmList().size();
+        migratingCount[slot] = host.getVmsMigratingIn().size();
+        hostUtilization[slot] = getHostUtilization(host);
+    }
+
+    private static double getHostUtilization(Host host) {
+        return host instanceof HostDynamicWorkload ? ((HostDynamicWorkload) host).getUtilizationMips() : 0;
+    }
+
+    /**
+     * Checks whether the validation mode is enabled.
+     *
+     * @return $true if every query is checked against the recomputed value
+     */
+    public boolean isValidate() {
+        return validate;
+    }
+
+    /**
+     * Enables or disables the validation mode.
+     *
+     * @param validate $true to check every query against the recomputed value
+     */
+    public void setValidate(boolean validate) {
+        this.validate = validate;
+    }
+
+}
@@ -0,0 +1,60 @@
+
+import java.util.List;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.power.PowerHostUtilizationHistory;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.provisioners.BwProvisioner;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+
+/**
+ * Host do CloudSim com histórico de utilização, com o histórico público para
+ * que a consolidação ({@link VmConsolidation}) possa calcular o limiar de
+ * sobrecarga de cada host; o {@link PowerHostUtilizationHistory} o mantém
+ * protegido.
+ *
+ * Também corrige a volta de uma VM migrada: o escalonador do CloudSim só tira
+ * a VM da sua lista de saída quando volta a alocá-la fora de migração, o que
+ * nunca acontece depois que ela sai do host. Se ela voltar ao host por outra
+ * migração, fica nas duas listas e é tratada como de saída (90% dos Mips em
+ * vez de 10%), e com o host sobrecarregado a distribuição dos Mips entre os
+ * núcleos passa do total e falha.
+ */
+public class UtilizationHistoryHost extends PowerHostUtilizationHistory {
+
+    public UtilizationHistoryHost(
+            int id,
+            RamProvisioner ramProvisioner,
+            BwProvisioner bwProvisioner,
+            long storage,
+            List<? extends Pe> peList,
+            VmScheduler vmScheduler,
+            PowerModel powerModel) {
+        super(id, ramProvisioner, bwProvisioner, storage, peList, vmScheduler, powerModel);
+    }
+
+    /**
+     * Gets the cpu utilization history of the host, the sum of the histories
+     * of its VMs weighted by their mips, most recent value first.
+     *
+     * @return the utilization history, from 0 to 1, without the trailing zeros
+     */
+    @Override
+    public double[] getUtilizationHistory() {
+        return super.getUtilizationHistory();
+    }
+
+    /**
+     * Adds a VM migrating in, first forgetting a migration out of this host
+     * left over from an earlier migration of the same VM.
+     *
+     * @param vm the vm
+     */
+    @Override
+    public void addMigratingInVm(Vm vm) {
+        getVmScheduler().getVmsMigratingOut().remove(vm.getUid());
+        super.addMigratingInVm(vm);
+    }
+
+}
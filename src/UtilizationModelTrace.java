@@ -0,0 +1,46 @@
+
+import org.cloudbus.cloudsim.UtilizationModel;
+
+/**
+ * Modelo de utilização que reproduz um trace de um {@link TraceStore}, com
+ * interpolação linear entre as amostras, como o
+ * {@code UtilizationModelPlanetLabInMemory} do CloudSim, mas sem copiar o
+ * trace para a memória de cada cloudlet.
+ */
+public class UtilizationModelTrace implements UtilizationModel {
+
+    private final TraceStore store;
+
+    private final int trace;
+
+    public UtilizationModelTrace(TraceStore store, int trace) {
+        if (trace < 0 || trace >= store.getTraces()) {
+            throw new IllegalArgumentException("Trace " + trace + " out of range; the store has "
+                    + store.getTraces() + " traces");
+        }
+        this.store = store;
+        this.trace = trace;
+    }
+
+    @Override
+    public double getUtilization(double time) {
+        int interval = store.getInterval();
+        int sample = (int) (time / interval);
+        double utilization = store.getUtilization(trace, sample);
+        double offset = time - (double) sample * interval;
+        if (offset == 0) {
+            return utilization;
+        }
+        double next = store.getUtilization(trace, sample + 1);
+        return utilization + (next - utilization) * offset / interval;
+    }
+
+    public TraceStore getStore() {
+        return store;
+    }
+
+    public int getTrace() {
+        return trace;
+    }
+
+}
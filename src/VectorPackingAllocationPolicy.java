@@ -0,0 +1,31 @@
+
+import java.util.List;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Política de empacotamento vetorial de VMs.
+ *
+ * Os núcleos entram na escolha do host como uma das dimensões do vetor, e não
+ * como filtro: um host sem núcleos livres ainda recebe VMs enquanto tiver Mips,
+ * Ram e banda para elas, já que o escalonador das VMs divide os Mips dos
+ * núcleos por tempo.
+ *
+ * @see VectorPackingHostSelector
+ */
+public class VectorPackingAllocationPolicy extends BaseAllocationPolicy {
+
+    public VectorPackingAllocationPolicy(List<PowerHost> list) {
+        super(list);
+        setHostSelector(new VectorPackingHostSelector());
+    }
+
+    /**
+     * The pes are a dimension of the vector, not a filter: the candidates are
+     * the hosts with room for the VM, free pes or not.
+     */
+    @Override
+    protected boolean isFreePesRequired() {
+        return false;
+    }
+
+}
@@ -0,0 +1,205 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+
+/**
+ * Empacotamento vetorial: considera núcleos, Ram, Mips e banda ao mesmo tempo.
+ *
+ * A demanda da VM e a capacidade livre de cada host são normalizadas pela
+ * capacidade total do host, e entre os hosts já ligados é escolhido o que fica
+ * mais próximo da demanda, isto é, o de menor distância euclidiana entre o
+ * vetor livre e o vetor pedido. Assim a VM vai para o host cujo espaço livre
+ * tem o mesmo formato da VM, sem deixar sobras em uma só dimensão. Só quando
+ * nenhum host ligado comporta a VM é ligado um host vazio, escolhido pela
+ * mesma distância: o vazio cuja capacidade total fica mais próxima da VM.
+ *
+ * Os hosts ligados ficam em um {@link HostCapacityIndex} pela Ram livre; a
+ * busca começa na Ram pedida pela VM, descartando sem examinar os hosts que
+ * não a comportam, pula sem passar pelo filtro da política os hosts fora do
+ * conjunto de candidatos da VM e para quando só a sobra de Ram, normalizada
+ * pela maior Ram entre os hosts, já dá uma distância maior que a do melhor
+ * host encontrado. Os hosts vazios de um mesmo tipo (núcleos, Ram, Mips e
+ * banda) ficam a uma mesma distância de qualquer VM, então ficam em um
+ * conjunto por tipo e só o primeiro adequado de cada tipo é examinado.
+ */
+public class VectorPackingHostSelector implements HostSelector {
+
+    /**
+     * Nota usada para tirar um host do índice.
+     */
+    private static final int ABSENT = -1;
+
+    private BaseAllocationPolicy policy;
+
+    /**
+     * Hosts com VMs, pela Ram livre.
+     */
+    private HostCapacityIndex active;
+
+    /**
+     * Maior Ram entre os hosts.
+     */
+    private int maxRam;
+
+    /**
+     * Tipo de cada host e hosts sem VMs de cada tipo.
+     */
+    private int[] typeOf;
+
+    private BitSet[] empty;
+
+    /**
+     * Um host de cada tipo, para as capacidades totais.
+     */
+    private int[] typeHost;
+
+    @Override
+    public void init(BaseAllocationPolicy policy) {
+        this.policy = policy;
+        int count = policy.getAllocationTable().getHostCount();
+        int[] absent = new int[count];
+        Arrays.fill(absent, ABSENT);
+        this.active = new HostCapacityIndex(absent);
+        this.typeOf = new int[count];
+        this.maxRam = 0;
+        Map<String, Integer> types = new HashMap<String, Integer>();
+        List<Integer> hosts = new ArrayList<Integer>();
+        for (int slot = 0; slot < count; slot++) {
+            Host host = policy.getAllocationTable().getHostAt(slot);
+            maxRam = Math.max(maxRam, host.getRam());
+            String key = host.getTotalMips() + " " + host.getNumberOfPes() + " " + host.getRam() + " " + host.getBw();
+            Integer type = types.get(key);
+            if (type == null) {
+                type = types.size();
+                types.put(key, type);
+                hosts.add(slot);
+            }
+            typeOf[slot] = type;
+        }
+        this.typeHost = new int[hosts.size()];
+        this.empty = new BitSet[hosts.size()];
+        for (int type = 0; type < typeHost.length; type++) {
+            typeHost[type] = hosts.get(type);
+            empty[type] = new BitSet(count);
+        }
+        for (int slot = 0; slot < count; slot++) {
+            hostUpdated(slot);
+        }
+    }
+
+    @Override
+    public PowerHost select(Vm vm) {
+        BitSet candidates = policy.getCandidateHosts(vm);
+        int best = closestActive(vm, candidates);
+        if (best < 0) {
+            best = closestEmpty(vm, candidates);
+        }
+        return best >= 0 ? policy.getAllocationTable().getHostAt(best) : null;
+    }
+
+    /**
+     * Gets the suitable active host closest to the demand of a VM, scanning
+     * from the requested ram up while the ram left over alone is not farther
+     * than the best host so far; the first one in index order on a tie.
+     *
+     * @return the host slot; -1 if no active host is suitable
+     */
+    private int closestActive(Vm vm, BitSet candidates) {
+        AllocationTable table = policy.getAllocationTable();
+        int requestedRam = vm.getCurrentRequestedRam();
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int slot = active.ascendingFirst(requestedRam); slot >= 0; slot = active.ascendingNext(slot)) {
+            double ram = difference(active.get(slot), requestedRam, maxRam);
+            if (ram * ram >= bestDistance) {
+                break;
+            }
+            if ((candidates != null && !candidates.get(slot)) || !policy.isSuitableForVm(slot, vm)) {
+                continue;
+            }
+            double distance = distance(table, slot, vm);
+            if (distance < bestDistance) {
+                best = slot;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the suitable empty host closest to the demand of a VM, looking at
+     * the first suitable host of each type; on a tie, the one with less total
+     * mips, then the lowest slot.
+     *
+     * @return the host slot; -1 if no empty host is suitable
+     */
+    private int closestEmpty(Vm vm, BitSet candidates) {
+        AllocationTable table = policy.getAllocationTable();
+        double requestedMips = vm.getMips() * vm.getNumberOfPes();
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int type = 0; type < typeHost.length; type++) {
+            if (table.getHostAt(typeHost[type]).getTotalMips() < requestedMips) {
+                continue;
+            }
+            int slot = empty[type].nextSetBit(0);
+            while (slot >= 0 && ((candidates != null && !candidates.get(slot)) || !policy.isSuitableForVm(slot, vm))) {
+                slot = empty[type].nextSetBit(slot + 1);
+            }
+            if (slot < 0) {
+                continue;
+            }
+            double distance = distance(table, slot, vm);
+            if (best < 0 || distance < bestDistance || (distance == bestDistance
+                    && isBefore(table.getHostAt(slot), slot, table.getHostAt(best), best))) {
+                best = slot;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isBefore(Host host, int slot, Host other, int otherSlot) {
+        if (host.getTotalMips() != other.getTotalMips()) {
+            return host.getTotalMips() < other.getTotalMips();
+        }
+        return slot < otherSlot;
+    }
+
+    @Override
+    public void hostUpdated(int slot) {
+        AllocationTable table = policy.getAllocationTable();
+        if (table.getVmCount(slot) > 0) {
+            active.set(slot, table.getFreeRam(slot));
+            empty[typeOf[slot]].clear(slot);
+        } else {
+            active.set(slot, ABSENT);
+            empty[typeOf[slot]].set(slot);
+        }
+    }
+
+    /**
+     * Squared euclidean distance between the free capacity of a host and the
+     * demand of a VM, both as fractions of the host capacity.
+     */
+    private static double distance(AllocationTable table, int slot, Vm vm) {
+        Host host = table.getHostAt(slot);
+        double pes = difference(Math.max(0, table.getFreePes(slot)), vm.getNumberOfPes(), host.getNumberOfPes());
+        double ram = difference(table.getFreeRam(slot), vm.getCurrentRequestedRam(), host.getRam());
+        double mips = difference(table.getFreeMips(slot), vm.getMips() * vm.getNumberOfPes(), host.getTotalMips());
+        double bw = difference(table.getFreeBw(slot), vm.getCurrentRequestedBw(), host.getBw());
+        return pes * pes + ram * ram + mips * mips + bw * bw;
+    }
+
+    private static double difference(double free, double requested, double capacity) {
+        return capacity > 0 ? (free - requested) / capacity : 0;
+    }
+
+}
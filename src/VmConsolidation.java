@@ -0,0 +1,456 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.util.MathUtil;
+
+/**
+ * Consolidação dinâmica das VMs, executada pelo datacenter a cada intervalo de
+ * escalonamento quando as migrações estão habilitadas; o {@link Main} só as
+ * habilita com {@code consolidation.enabled=true} no cenário.
+ *
+ * Segue o esquema de Beloglazov com o limiar superior pela mediana dos
+ * desvios absolutos (MAD): o limiar de cada host é 1 - s * MAD do seu
+ * histórico de utilização de CPU ({@link UtilizationHistoryHost}), com s o
+ * parâmetro de segurança, de forma que hosts de carga mais variável são
+ * aliviados mais cedo. Enquanto o histórico tem menos de
+ * {@value #MIN_HISTORY_LENGTH} valores, ou com s igual a 0, vale o limiar
+ * superior estático. Um host acima do seu limiar é sobrecarregado e perde as
+ * VMs de menor Ram (menor tempo de migração) até voltar abaixo dele; em seguida
+ * os hosts abaixo do limiar inferior são esvaziados, do menos para o mais
+ * utilizado, quando todas as suas VMs cabem em outros hosts ativos. Os
+ * destinos são escolhidos pela própria heurística da política, com
+ * {@link BaseAllocationPolicy#isSuitableForVm(int, Vm)} desviado para
+ * {@link #isSuitableForVm(int, Vm)} durante o planejamento. As reservas do
+ * plano ficam em vetores por host e nada é alocado de fato: o datacenter faz
+ * as migrações a partir do mapa devolvido.
+ *
+ * Cada rodada custa O(H log H) para ordenar os hosts mais uma busca da
+ * heurística por VM migrada. O orçamento da rodada é o número de hosts
+ * aliviados ou esvaziados, e não o tempo de relógio, para que o plano seja o
+ * mesmo em qualquer máquina: ao atingi-lo, a rodada devolve as migrações
+ * planejadas até ali e os demais hosts ficam para a próxima.
+ */
+public class VmConsolidation {
+
+    public static final double DEFAULT_UPPER_THRESHOLD = 0.9;
+
+    public static final double DEFAULT_LOWER_THRESHOLD = 0.3;
+
+    public static final double DEFAULT_SAFETY_PARAMETER = 2.5;
+
+    /**
+     * Tamanho mínimo do histórico de um host para o limiar pela MAD, o mesmo
+     * das políticas de Beloglazov no CloudSim.
+     */
+    public static final int MIN_HISTORY_LENGTH = 12;
+
+    public static final int DEFAULT_MAX_HOSTS_PER_ROUND = 200;
+
+    private final BaseAllocationPolicy policy;
+
+    private double upperThreshold = DEFAULT_UPPER_THRESHOLD;
+
+    private double lowerThreshold = DEFAULT_LOWER_THRESHOLD;
+
+    private double safetyParameter = DEFAULT_SAFETY_PARAMETER;
+
+    private int maxHostsPerRound = DEFAULT_MAX_HOSTS_PER_ROUND;
+
+    /**
+     * Núcleos, Ram, banda e Mips reservados em cada host pelo plano corrente.
+     */
+    private final int[] plannedPes;
+    private final int[] plannedRam;
+    private final long[] plannedBw;
+    private final double[] plannedMips;
+
+    /**
+     * Hosts que não podem receber VMs no plano corrente: os sobrecarregados e
+     * os que estão sendo esvaziados.
+     */
+    private final boolean[] excluded;
+
+    /**
+     * Limiar superior de utilização de cada host na rodada corrente.
+     */
+    private final double[] hostThreshold;
+
+    /**
+     * Quando $false, hosts sem VMs (desligados) não recebem VMs.
+     */
+    private boolean allowEmptyHosts;
+
+    private boolean planning;
+
+    /**
+     * Tempo gasto pela rodada corrente na escolha dos destinos.
+     */
+    private long reallocationNanos;
+
+    /**
+     * Tempo de execução de cada rodada na seleção das VMs e na escolha dos
+     * destinos, em milissegundos, como o {@code ExecutionTimeMeasurer} das
+     * políticas de migração do CloudSim.
+     */
+    private final List<Double> vmSelectionTimes = new ArrayList<Double>();
+    private final List<Double> vmReallocationTimes = new ArrayList<Double>();
+
+    public VmConsolidation(BaseAllocationPolicy policy) {
+        int count = policy.getAllocationTable().getHostCount();
+        this.policy = policy;
+        this.plannedPes = new int[count];
+        this.plannedRam = new int[count];
+        this.plannedBw = new long[count];
+        this.plannedMips = new double[count];
+        this.excluded = new boolean[count];
+        this.hostThreshold = new double[count];
+    }
+
+    /**
+     * Plans the migrations of one consolidation round.
+     *
+     * @param vmList the vms of the datacenter
+     * @return the migration map, one entry with the keys "vm" and "host" per
+     * migration
+     */
+    public List<Map<String, Object>> optimize(List<? extends Vm> vmList) {
+        final AllocationTable table = policy.getAllocationTable();
+        final UtilizationCache utilization = policy.getUtilizationCache();
+        long start = System.nanoTime();
+        reallocationNanos = 0;
+        int budget = maxHostsPerRound;
+        List<Map<String, Object>> migrationMap = new ArrayList<Map<String, Object>>();
+
+        int count = table.getHostCount();
+        final double[] hostUtilization = new double[count];
+        List<Integer> overloaded = new ArrayList<Integer>();
+        List<Integer> underloaded = new ArrayList<Integer>();
+        for (int slot = 0; slot < count; slot++) {
+            PowerHost host = table.getHostAt(slot);
+            hostUtilization[slot] = utilization.getUtilizationOfCpuMips(slot) / host.getTotalMips();
+            hostThreshold[slot] = getHostThreshold(host);
+            if (!isStable(host)) {
+                continue;
+            }
+            if (hostUtilization[slot] > hostThreshold[slot]) {
+                overloaded.add(slot);
+                excluded[slot] = true;
+            } else if (!host.getVmList().isEmpty() && hostUtilization[slot] < lowerThreshold) {
+                underloaded.add(slot);
+            }
+        }
+
+        planning = true;
+        try {
+            allowEmptyHosts = true;
+            for (int slot : overloaded) {
+                if (budget <= 0) {
+                    break;
+                }
+                budget--;
+                relieve(slot, hostUtilization[slot], migrationMap);
+            }
+
+            allowEmptyHosts = false;
+            underloaded.sort(new Comparator<Integer>() {
+                @Override
+                public int compare(Integer s1, Integer s2) {
+                    int byUtilization = Double.compare(hostUtilization[s1], hostUtilization[s2]);
+                    return byUtilization != 0 ? byUtilization : s1 - s2;
+                }
+            });
+            for (int slot : underloaded) {
+                if (budget <= 0) {
+                    break;
+                }
+                if (plannedPes[slot] == 0) {
+                    budget--;
+                    drain(slot, migrationMap);
+                }
+            }
+        } finally {
+            planning = false;
+            Arrays.fill(plannedPes, 0);
+            Arrays.fill(plannedRam, 0);
+            Arrays.fill(plannedBw, 0);
+            Arrays.fill(plannedMips, 0);
+            Arrays.fill(excluded, false);
+        }
+
+        long roundNanos = System.nanoTime() - start;
+        vmSelectionTimes.add((roundNanos - reallocationNanos) / 1e6);
+        vmReallocationTimes.add(reallocationNanos / 1e6);
+
+        if (!migrationMap.isEmpty()) {
+            policy.getEventLog().log(PolicyEventLog.Type.MIGRATIONS_PLANNED, CloudSim.clock(), migrationMap.size(), 0);
+        }
+        return migrationMap;
+    }
+
+    /**
+     * Gets the upper utilization threshold of a host: 1 - s * MAD of its
+     * utilization history, or the static upper threshold while the history
+     * is too short.
+     */
+    private double getHostThreshold(PowerHost host) {
+        if (safetyParameter > 0 && host instanceof UtilizationHistoryHost) {
+            double[] history = ((UtilizationHistoryHost) host).getUtilizationHistory();
+            if (history.length >= MIN_HISTORY_LENGTH) {
+                return 1 - safetyParameter * MathUtil.mad(history);
+            }
+        }
+        return upperThreshold;
+    }
+
+    /**
+     * Migrates the VMs with the least ram out of an overloaded host until its
+     * utilization falls below its threshold.
+     */
+    private void relieve(int slot, double hostUtilization, List<Map<String, Object>> migrationMap) {
+        PowerHost host = policy.getAllocationTable().getHostAt(slot);
+        List<Vm> vms = getMigratableVms(host);
+        vms.sort(new Comparator<Vm>() {
+            @Override
+            public int compare(Vm vm1, Vm vm2) {
+                int byRam = vm1.getRam() - vm2.getRam();
+                return byRam != 0 ? byRam : vm1.getId() - vm2.getId();
+            }
+        });
+        double utilization = hostUtilization;
+        for (Vm vm : vms) {
+            if (utilization <= hostThreshold[slot]) {
+                break;
+            }
+            PowerHost target = plan(vm);
+            if (target != null) {
+                addMigration(migrationMap, vm, target);
+                utilization -= host.getTotalAllocatedMipsForVm(vm) / host.getTotalMips();
+            }
+        }
+    }
+
+    /**
+     * Migrates every VM out of an underloaded host, or none of them if some
+     * VM does not fit in another active host.
+     */
+    private void drain(int slot, List<Map<String, Object>> migrationMap) {
+        PowerHost host = policy.getAllocationTable().getHostAt(slot);
+        List<Vm> vms = getMigratableVms(host);
+        if (vms.size() != host.getVmList().size()) {
+            return;
+        }
+        excluded[slot] = true;
+        List<Map<String, Object>> hostMigrations = new ArrayList<Map<String, Object>>();
+        for (Vm vm : vms) {
+            PowerHost target = plan(vm);
+            if (target == null) {
+                for (Map<String, Object> migration : hostMigrations) {
+                    release((Vm) migration.get("vm"), (PowerHost) migration.get("host"));
+                }
+                excluded[slot] = false;
+                return;
+            }
+            addMigration(hostMigrations, vm, target);
+        }
+        migrationMap.addAll(hostMigrations);
+    }
+
+    /**
+     * Chooses a target host with the policy heuristic and reserves its
+     * capacity in the plan.
+     */
+    private PowerHost plan(Vm vm) {
+        long start = System.nanoTime();
+        PowerHost target = policy.findHostForVm(vm);
+        reallocationNanos += System.nanoTime() - start;
+        if (target != null) {
+            int slot = policy.getAllocationTable().slotOf(target);
+            plannedPes[slot] += vm.getNumberOfPes();
+            plannedRam[slot] += vm.getCurrentRequestedRam();
+            plannedBw[slot] += vm.getCurrentRequestedBw();
+            plannedMips[slot] += vm.getCurrentRequestedTotalMips();
+        }
+        return target;
+    }
+
+    private void release(Vm vm, PowerHost target) {
+        int slot = policy.getAllocationTable().slotOf(target);
+        plannedPes[slot] -= vm.getNumberOfPes();
+        plannedRam[slot] -= vm.getCurrentRequestedRam();
+        plannedBw[slot] -= vm.getCurrentRequestedBw();
+        plannedMips[slot] -= vm.getCurrentRequestedTotalMips();
+    }
+
+    /**
+     * Checks whether a host can receive a VM in the plan: it must not be
+     * excluded, must have pes for the whole VM, must fit the VM on top of the
+     * capacity already reserved, with free pes left if the policy requires
+     * them, and must stay below its threshold after receiving it.
+     *
+     * @param slot the host slot
+     * @param vm the vm
+     * @return $true if the host is suitable for the VM
+     */
+    public boolean isSuitableForVm(int slot, Vm vm) {
+        AllocationTable table = policy.getAllocationTable();
+        PowerHost host = table.getHostAt(slot);
+        if (excluded[slot] || (!allowEmptyHosts && host.getVmList().isEmpty() && plannedPes[slot] == 0)) {
+            return false;
+        }
+        double mips = policy.getUtilizationCache().getUtilizationOfCpuMips(slot)
+                + plannedMips[slot] + vm.getCurrentRequestedTotalMips();
+        return vm.getNumberOfPes() <= host.getNumberOfPes()
+                && host.getVmScheduler().getPeCapacity() >= vm.getMips()
+                && (!policy.isFreePesRequired() || table.getFreePes(slot) - plannedPes[slot] > 0)
+                && host.getRamProvisioner().getAvailableRam() - plannedRam[slot] >= vm.getCurrentRequestedRam()
+                && host.getBwProvisioner().getAvailableBw() - plannedBw[slot] >= vm.getCurrentRequestedBw()
+                && mips <= hostThreshold[slot] * host.getTotalMips();
+    }
+
+    /**
+     * Checks whether a host takes part in the round: hosts with migrations in
+     * flight are left alone until they finish.
+     */
+    private static boolean isStable(PowerHost host) {
+        if (!host.getVmsMigratingIn().isEmpty()) {
+            return false;
+        }
+        for (Vm vm : host.getVmList()) {
+            if (vm.isInMigration()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Vm> getMigratableVms(PowerHost host) {
+        List<Vm> vms = new ArrayList<Vm>();
+        for (Vm vm : host.<Vm>getVmList()) {
+            if (!vm.isInMigration()) {
+                vms.add(vm);
+            }
+        }
+        return vms;
+    }
+
+    private static void addMigration(List<Map<String, Object>> migrationMap, Vm vm, PowerHost target) {
+        Map<String, Object> migration = new HashMap<String, Object>();
+        migration.put("vm", vm);
+        migration.put("host", target);
+        migrationMap.add(migration);
+    }
+
+    /**
+     * Checks whether a migration plan is being built.
+     *
+     * @return $true while {@link #optimize(List)} is choosing targets
+     */
+    public boolean isPlanning() {
+        return planning;
+    }
+
+    /**
+     * Gets the time each consolidation round spent selecting the hosts and
+     * the VMs to migrate, outside the search of targets.
+     *
+     * @return the times, in milliseconds, one per round
+     */
+    public List<Double> getVmSelectionTimes() {
+        return vmSelectionTimes;
+    }
+
+    /**
+     * Gets the time each consolidation round spent choosing the targets of
+     * the migrations with the policy heuristic.
+     *
+     * @return the times, in milliseconds, one per round
+     */
+    public List<Double> getVmReallocationTimes() {
+        return vmReallocationTimes;
+    }
+
+    /**
+     * Gets the static upper cpu utilization threshold, used by the hosts
+     * without enough utilization history.
+     *
+     * @return the upper threshold, from 0 to 1
+     */
+    public double getUpperThreshold() {
+        return upperThreshold;
+    }
+
+    /**
+     * Sets the static upper cpu utilization threshold, used by the hosts
+     * without enough utilization history.
+     *
+     * @param upperThreshold the upper threshold, from 0 to 1
+     */
+    public void setUpperThreshold(double upperThreshold) {
+        this.upperThreshold = upperThreshold;
+    }
+
+    /**
+     * Gets the lower cpu utilization threshold.
+     *
+     * @return the lower threshold, from 0 to 1
+     */
+    public double getLowerThreshold() {
+        return lowerThreshold;
+    }
+
+    /**
+     * Sets the lower cpu utilization threshold.
+     *
+     * @param lowerThreshold the lower threshold, from 0 to 1
+     */
+    public void setLowerThreshold(double lowerThreshold) {
+        this.lowerThreshold = lowerThreshold;
+    }
+
+    /**
+     * Gets the safety parameter s of the threshold 1 - s * MAD.
+     *
+     * @return the safety parameter; 0 when only the static threshold is used
+     */
+    public double getSafetyParameter() {
+        return safetyParameter;
+    }
+
+    /**
+     * Sets the safety parameter s of the threshold 1 - s * MAD.
+     *
+     * @param safetyParameter the safety parameter; 0 to use only the static
+     * threshold
+     */
+    public void setSafetyParameter(double safetyParameter) {
+        this.safetyParameter = safetyParameter;
+    }
+
+    /**
+     * Gets the maximum number of hosts relieved or drained in a
+     * consolidation round.
+     *
+     * @return the maximum number of hosts per round
+     */
+    public int getMaxHostsPerRound() {
+        return maxHostsPerRound;
+    }
+
+    /**
+     * Sets the maximum number of hosts relieved or drained in a
+     * consolidation round.
+     *
+     * @param maxHostsPerRound the maximum number of hosts per round
+     */
+    public void setMaxHostsPerRound(int maxHostsPerRound) {
+        this.maxHostsPerRound = maxHostsPerRound;
+    }
+
+}
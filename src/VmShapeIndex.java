@@ -0,0 +1,148 @@
+
+import java.util.BitSet;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * Conjuntos de hosts que podem receber cada formato de VM (núcleos, Mips,
+ * Ram e banda), mantidos pela {@link AllocationTable}.
+ *
+ * Os formatos são registrados na primeira VM de cada um; a simulação tem
+ * poucos formatos e muitas VMs de cada. Para cada formato há três conjuntos,
+ * atualizados a cada alocação e liberação do host que mudou:
+ * <ul>
+ * <li>{@link #getFits(int)}: os hosts em que a VM cabe pela tabela, como em
+ * {@link AllocationTable#fits(int, Vm)};</li>
+ * <li>{@link #getRoom(int)}: os hosts com Ram e banda suficientes e Mips
+ * totais que comportam a VM, condições necessárias para o filtro da criação de
+ * uma VM nas políticas que não exigem núcleos livres;</li>
+ * <li>{@link #getOpen(int)}: os mesmos hosts, se ainda tiverem núcleos livres,
+ * condições necessárias para o filtro das demais políticas.</li>
+ * </ul>
+ */
+public class VmShapeIndex {
+
+    /**
+     * Limite de formatos registrados; acima dele as VMs ficam sem conjunto.
+     */
+    public static final int MAX_SHAPES = 64;
+
+    private final AllocationTable table;
+
+    private int shapes;
+
+    private final int[] pes = new int[MAX_SHAPES];
+    private final double[] mips = new double[MAX_SHAPES];
+    private final int[] ram = new int[MAX_SHAPES];
+    private final long[] bw = new long[MAX_SHAPES];
+
+    private final BitSet[] fits = new BitSet[MAX_SHAPES];
+
+    private final BitSet[] room = new BitSet[MAX_SHAPES];
+
+    private final BitSet[] open = new BitSet[MAX_SHAPES];
+
+    public VmShapeIndex(AllocationTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Gets the shape of a VM, registering it on first use. Registering costs
+     * one pass over the hosts.
+     *
+     * @param vm the vm
+     * @return the shape; -1 if {@link #MAX_SHAPES} shapes are already
+     * registered
+     */
+    public int shapeOf(Vm vm) {
+        int vmPes = vm.getNumberOfPes();
+        double vmMips = vm.getMips();
+        int vmRam = vm.getRam();
+        long vmBw = vm.getBw();
+        for (int shape = 0; shape < shapes; shape++) {
+            if (pes[shape] == vmPes && mips[shape] == vmMips && ram[shape] == vmRam && bw[shape] == vmBw) {
+                return shape;
+            }
+        }
+        if (shapes == MAX_SHAPES) {
+            return -1;
+        }
+        int shape = shapes++;
+        pes[shape] = vmPes;
+        mips[shape] = vmMips;
+        ram[shape] = vmRam;
+        bw[shape] = vmBw;
+        fits[shape] = new BitSet(table.getHostCount());
+        room[shape] = new BitSet(table.getHostCount());
+        open[shape] = new BitSet(table.getHostCount());
+        for (int slot = 0; slot < table.getHostCount(); slot++) {
+            update(shape, slot);
+        }
+        return shape;
+    }
+
+    /**
+     * Gets the number of registered shapes.
+     *
+     * @return the number of shapes
+     */
+    public int getShapeCount() {
+        return shapes;
+    }
+
+    /**
+     * Gets the hosts where a VM of the shape fits according to the table.
+     *
+     * @param shape the shape
+     * @return the set of host slots; must not be modified
+     */
+    public BitSet getFits(int shape) {
+        return fits[shape];
+    }
+
+    /**
+     * Gets the hosts with ram and bandwidth for a VM of the shape and enough
+     * total mips for it, with or without free pes.
+     *
+     * @param shape the shape
+     * @return the set of host slots; must not be modified
+     */
+    public BitSet getRoom(int shape) {
+        return room[shape];
+    }
+
+    /**
+     * Gets the hosts with free pes, ram and bandwidth for a VM of the shape
+     * and enough total mips for it.
+     *
+     * @param shape the shape
+     * @return the set of host slots; must not be modified
+     */
+    public BitSet getOpen(int shape) {
+        return open[shape];
+    }
+
+    /**
+     * Updates the sets of every shape for a host whose free capacity changed.
+     *
+     * @param slot the host slot
+     */
+    public void hostUpdated(int slot) {
+        for (int shape = 0; shape < shapes; shape++) {
+            update(shape, slot);
+        }
+    }
+
+    private void update(int shape, int slot) {
+        Host host = table.getHostAt(slot);
+        double totalMips = mips[shape] * pes[shape];
+        boolean capacity = table.getFreeRam(slot) >= ram[shape]
+                && table.getFreeBw(slot) >= bw[shape]
+                && host.getVmScheduler().getPeCapacity() >= mips[shape];
+        boolean roomy = capacity && host.getTotalMips() >= totalMips;
+        fits[shape].set(slot, capacity && table.getFreeMips(slot) >= totalMips);
+        room[shape].set(slot, roomy);
+        open[shape].set(slot, roomy && table.getFreePes(slot) > 0);
+    }
+
+}